@@ -8,15 +8,18 @@
 import Memory.MonitorAcessoMemoria;
 import display.TelaEmulador;
 import nes.NES;
+import ppu.FrameExchange;
+import ppu.NesPalette;
 
 import javax.swing.SwingUtilities;
+import java.nio.file.Paths;
 
 public class AnalisadorRomNES {
     public final static double FPS = 60.09;
 
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Uso: java AnalisadorRomNES <arquivo.nes>");
+            System.out.println("Uso: java AnalisadorRomNES <arquivo.nes> [--trace <diretório>] [--palette <arquivo.pal>] [--scale <n>] [--frameskip <n>/<m>]");
             return;
         }
 
@@ -27,22 +30,59 @@ public class AnalisadorRomNES {
             emulador.loadROM(caminhoArquivo);
             emulador.reset();
 
+            int escala = 2;
+            for (int i = 1; i + 1 < args.length; i += 2) {
+                if (args[i].equals("--trace")) {
+                    // Grava todos os acessos do barramento (consultar com Memory.TraceReader)
+                    emulador.startTrace(Paths.get(args[i + 1]), "trace");
+                    System.out.println("Gravando trace em " + args[i + 1]);
+                } else if (args[i].equals("--palette")) {
+                    NesPalette.load(Paths.get(args[i + 1]));
+                    System.out.println("Paleta carregada de " + args[i + 1]);
+                } else if (args[i].equals("--scale")) {
+                    escala = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--frameskip")) {
+                    // n de cada m frames não são desenhados
+                    String[] partes = args[i + 1].split("/");
+                    emulador.setFrameSkip(Integer.parseInt(partes[0]), Integer.parseInt(partes[1]));
+                }
+            }
+
             MonitorAcessoMemoria monitor = emulador.getMemoria().getMonitor();
             monitor.limparFiltros();
 
             final TelaEmulador[] telasEmulador = new TelaEmulador[1];
+            final int escalaTela = escala;
 
             SwingUtilities.invokeAndWait(() -> {
                 telasEmulador[0] = new TelaEmulador(
                     emulador.getController1(),
-                    emulador.getMemoria().getMonitor()
+                    emulador.getMemoria().getMonitor(),
+                    escalaTela
                 );
             });
 
             TelaEmulador janela = telasEmulador[0];
 
+            // A PPU publica frames completos; a tela pega o mais recente ao pintar
+            FrameExchange frames = new FrameExchange();
+            emulador.getPpu().setFrameExchange(frames);
+            janela.setFrameExchange(frames);
+
             emulador.start();
 
+            // Ao sair (fechar a janela chama System.exit), para o laço e espera a thread da
+            // emulação terminar com stop(): o trace e a SRAM são fechados por ela, não pelo hook
+            Thread threadEmulacao = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                emulador.requestStop();
+                try {
+                    threadEmulacao.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
             System.out.println("\n=== Emulador nes.NES Iniciado ===");
             System.out.println(emulador.getDebugInfo());
 
@@ -50,6 +90,7 @@ public class AnalisadorRomNES {
             final double nsPerFrame = 1_000_000_000.0 / FPS;
 
             iniciarLoopPrincipal(emulador, lastTime, nsPerFrame, janela);
+            emulador.stop();
 
         } catch (Exception e) {
             System.err.println("Erro ao executar o emulador: " + e.getMessage());
@@ -65,7 +106,7 @@ public class AnalisadorRomNES {
             if (elapsed >= nsPerFrame) {
                 // Avança exatamente um frame lógico
                 emulador.runFrame();
-                janela.updateScreen(emulador.getFramebuffer());
+                janela.updateScreen();
 
                 // Atualiza o marcador de tempo preservando o passo ideal
                 lastTime += (long) nsPerFrame;
@@ -0,0 +1,8 @@
+package Memory;
+
+/**
+ * Interessado em cada instrução executada pela CPU (mapa de calor, gravação de trace).
+ */
+public interface ExecutionProbe {
+    void recordExecute(int address);
+}
@@ -1,36 +1,112 @@
 package Memory;
 
+import nes.memory.BankSwitchListener;
 import nes.memory.Mapper;
 
 import java.util.ArrayList;
 import java.util.List;
 
-// Inicializa variavel de tamanho da memoria do nes, cria um vetor com cada endereço, e uma lista com blocos lógicos da memória
+// Barramento da CPU do nes: tabela de páginas sobre a RAM interna, os dispositivos e o
+// cartucho, e uma lista com blocos lógicos da memória
 public class MemoryMap {
-    private static final int MEMORY_SIZE = 0x10000; // 64 KB
-    private final byte[] addressSpace = new byte[MEMORY_SIZE];
+    // RAM interna ($0000-$07FF): zero page, pilha e RAM de trabalho,
+    // espelhada até $1FFF (o endereço é mascarado com RAM_MASK)
+    public static final int RAM_SIZE = 0x0800;
+    public static final int RAM_MASK = RAM_SIZE - 1;
+    public static final int RAM_MIRRORS_END = 0x2000;
+    private final byte[] ram = new byte[RAM_SIZE];
+
+    // Página sem memória por trás: lê 0 (somente leitura)
+    private static final byte[] EMPTY_PAGE = new byte[0x100];
+    // Dispositivo de escrita de páginas vazias que aceitam escritas sem efeito ($6000 sem SRAM)
+    private static final MemoryMappedDevice IGNORE_WRITES = new MemoryMappedDevice() {
+        @Override
+        public int read(int address) {
+            return 0;
+        }
+
+        @Override
+        public void write(int address, int value) {
+        }
+    };
+    // Registradores de PPU/APU sem handler conectado (testes)
+    private final byte[] ppuRegisters = new byte[8];
+    private final byte[] ioRegisters = new byte[0x20];
+    // SRAM do cartucho ($6000-$7FFF), só quando o cartucho tem: um array, ou um
+    // dispositivo quando a SRAM tem bateria e é gravada em arquivo
+    private byte[] sram;
+    private MemoryMappedDevice sramDevice;
+    // PRG sem mapper (loadPRGComEspelhamento / loadTestProgram)
+    private byte[] prgRom;
     private final List<MemorySegment> segments = new ArrayList<>();
     private final MonitorAcessoMemoria monitor;
 
+    // Tabela de páginas: o espaço de 64KB em 256 páginas de 256 bytes. Cada página lê de
+    // um array (com deslocamento) ou, se não houver array, de um dispositivo.
+    private static final int PAGE_COUNT = 0x100;
+    private final byte[][] readPages = new byte[PAGE_COUNT][];
+    private final byte[][] writePages = new byte[PAGE_COUNT][];
+    private final int[] pageOffsets = new int[PAGE_COUNT];
+    private final MemoryMappedDevice[] readDevices = new MemoryMappedDevice[PAGE_COUNT];
+    private final MemoryMappedDevice[] writeDevices = new MemoryMappedDevice[PAGE_COUNT];
+    private final MemorySegment[] pageSegments = new MemorySegment[PAGE_COUNT];
+    private final int[] pageSegmentIds = new int[PAGE_COUNT];
+    // Páginas cujos acessos vão para o monitor (memória do próprio MemoryMap)
+    private final boolean[] monitoredPages = new boolean[PAGE_COUNT];
+    private MemorySegment expansionSegment;
+
+    // Com o monitor ligado, as páginas monitoradas trocam o array por uma sonda (ProbePage)
+    // que registra cada acesso; desligado, readByte/writeByte não têm nenhum teste extra
+    private final boolean[] probedPages = new boolean[PAGE_COUNT];
+    private boolean probesInstalled;
+    private boolean monitorProbes;
+    // Mapa de calor ou gravação de trace: todas as páginas têm sonda
+    private boolean allPagesProbed;
+    // Watchpoints mudaram (de qualquer thread); as sondas são trocadas em applyPendingChanges
+    private volatile boolean watchpointsChanged;
+    // RAM interna para acesso direto da CPU (null enquanto houver sondas)
+    private byte[] directRam;
+    // Quem é avisado de cada instrução executada (mapa de calor e/ou trace), ou null
+    private ExecutionProbe executeProbe;
+    // Gravação do trace binário de acessos, ou null
+    private TraceRecorder traceRecorder;
+    // Watchpoints e breakpoints do depurador; páginas com watchpoint também têm sonda
+    private final Watchpoints watchpoints = new Watchpoints();
+    private static final ExecutionProbe NO_EXECUTE_PROBE = address -> { };
+
     // Handlers opcionais para integração com PPU/APU/Input
     private transient MemoryMappedDevice ppuHandler;
     private transient MemoryMappedDevice apuHandler;
     private transient MemoryMappedDevice inputHandler;
+    // Página 0x40: APU/controles e o começo da expansão do cartucho
+    private final IoPage ioPage = new IoPage();
     private transient Mapper mapper;
 
+    // Interessados em saber quando o código visível em PRG muda
+    private final List<BankSwitchListener> bankSwitchListeners = new ArrayList<>();
+
     // inicializa segmentos
     public MemoryMap() {
         this.monitor = new MonitorAcessoMemoria();
         initializeSegments();
+        initializePages();
+        updateProbes();
+        watchpoints.setChangeListener(() -> watchpointsChanged = true);
     }
 
     // Permite registrar dispositivos mapeados em memória
     public void setPpuHandler(MemoryMappedDevice ppuHandler) {
         this.ppuHandler = ppuHandler;
+        if (ppuHandler != null) {
+            mapDevice(0x20, 0x20, ppuHandler);
+        } else {
+            mapPpuRegisters();
+        }
     }
 
     public void setApuHandler(MemoryMappedDevice apuHandler) {
         this.apuHandler = apuHandler;
+        mapIoPage();
     }
 
     public void setInputHandler(MemoryMappedDevice inputHandler) {
@@ -39,6 +115,28 @@ public class MemoryMap {
 
     public void setMapper(Mapper mapper) {
         this.mapper = mapper;
+        mapCartridgePages();
+        if (mapper != null) {
+            for (BankSwitchListener listener : bankSwitchListeners) {
+                mapper.addBankSwitchListener(listener);
+            }
+        }
+        // Novo cartucho: todo o espaço do cartucho mudou
+        notifyBankSwitch(0x4020, 0xFFFF);
+    }
+
+    // Registra um ouvinte de troca de bancos, repassado ao mapper atual e aos futuros
+    public void addBankSwitchListener(BankSwitchListener listener) {
+        bankSwitchListeners.add(listener);
+        if (mapper != null) {
+            mapper.addBankSwitchListener(listener);
+        }
+    }
+
+    private void notifyBankSwitch(int start, int end) {
+        for (BankSwitchListener listener : bankSwitchListeners) {
+            listener.prgBankSwitched(start, end);
+        }
     }
 
     // define os principais blocos de memória do nes.NES.
@@ -51,6 +149,337 @@ public class MemoryMap {
         segments.add(new MemorySegment("SRAM", 0x6000, 0x7FFF, false));
         segments.add(new MemorySegment("PRG-ROM (Bank 0)", 0x8000, 0xBFFF, true)); // read only
         segments.add(new MemorySegment("PRG-ROM (Bank 1)", 0xC000, 0xFFFF, true)); // read only
+
+        // segmento de cada página; a página 0x40 é dividida entre APU/IO e expansão
+        String[] names = new String[segments.size()];
+        for (int id = 0; id < segments.size(); id++) {
+            MemorySegment segment = segments.get(id);
+            names[id] = segment.getName();
+            for (int page = segment.getStart() >>> 8; page <= segment.getEnd() >>> 8; page++) {
+                if (pageSegments[page] == null) {
+                    pageSegments[page] = segment;
+                    pageSegmentIds[page] = id;
+                }
+            }
+        }
+        expansionSegment = segments.get(4);
+        monitor.setSegmentNames(names);
+    }
+
+    // Mapeamento inicial: RAM e seus espelhos, registradores e cartucho
+    private void initializePages() {
+        // os 4 espelhos de $0000-$1FFF apontam para o mesmo array de 2KB
+        for (int page = 0; page < RAM_MIRRORS_END >>> 8; page++) {
+            mapInternal(page, 1, ram, (page << 8) & RAM_MASK, true);
+        }
+        mapPpuRegisters();
+        mapIoPage();
+        mapCartridgePages();
+    }
+
+    // Sem APU conectada os registradores de $4000-$401F são memória interna e a página
+    // é monitorada como a RAM (os acessos são registrados pela sonda)
+    private void mapIoPage() {
+        setPage(0x40, null, null, 0, ioPage, apuHandler == null);
+    }
+
+    // Sem PPU conectada: 8 registradores espelhados em $2000-$3FFF
+    private void mapPpuRegisters() {
+        MemoryMappedDevice registers = new MemoryMappedDevice() {
+            @Override
+            public int read(int address) {
+                return Byte.toUnsignedInt(ppuRegisters[address & 0x07]);
+            }
+
+            @Override
+            public void write(int address, int value) {
+                ppuRegisters[address & 0x07] = (byte) value;
+            }
+        };
+        for (int page = 0x20; page < 0x40; page++) {
+            setPage(page, null, null, 0, registers, true);
+        }
+    }
+
+    // $4100-$FFFF: pelo mapper, se houver cartucho, senão pelos arrays internos
+    private void mapCartridgePages() {
+        if (mapper == null) {
+            for (int page = 0x41; page < 0x60; page++) {
+                mapInternal(page, 1, EMPTY_PAGE, 0, false);
+            }
+            mapSramPages();
+            for (int page = 0x80; page < PAGE_COUNT; page++) {
+                if (prgRom != null) {
+                    mapInternal(page, 1, prgRom, ((page - 0x80) << 8) & (prgRom.length - 1), false);
+                } else {
+                    mapInternal(page, 1, EMPTY_PAGE, 0, false);
+                }
+            }
+            return;
+        }
+        mapDevice(0x41, PAGE_COUNT - 0x41, new MemoryMappedDevice() {
+            @Override
+            public int read(int address) {
+                return mapper.cpuRead(address) & 0xFF;
+            }
+
+            @Override
+            public void write(int address, int value) {
+                mapper.cpuWrite(address, value);
+            }
+        });
+        if (sram != null || sramDevice != null) {
+            mapSramPages();
+        }
+        // O mapper troca as páginas que consegue servir direto de seus arrays
+        mapper.mapCpuPages(this);
+    }
+
+    // $6000-$7FFF: SRAM (espelhada se menor que 8KB); sem SRAM lê 0 e ignora escritas
+    private void mapSramPages() {
+        for (int page = 0x60; page < 0x80; page++) {
+            if (sramDevice != null) {
+                setPage(page, null, null, 0, sramDevice, true);
+            } else if (sram != null) {
+                mapInternal(page, 1, sram, ((page - 0x60) << 8) & (sram.length - 1), true);
+            } else {
+                setPage(page, EMPTY_PAGE, null, 0, IGNORE_WRITES, true);
+            }
+        }
+    }
+
+    /**
+     * Instala (ou remove, com null) a SRAM do cartucho em $6000-$7FFF. O tamanho deve ser
+     * uma potência de dois entre 256 bytes e 8KB.
+     */
+    public void setSram(byte[] sram) {
+        if (sram != null && (sram.length < 0x100 || sram.length > 0x2000 || Integer.bitCount(sram.length) != 1)) {
+            throw new IllegalArgumentException("Unsupported SRAM size: " + sram.length);
+        }
+        this.sram = sram;
+        this.sramDevice = null;
+        mapCartridgePages();
+    }
+
+    /**
+     * Instala em $6000-$7FFF uma SRAM servida por dispositivo (ex.: SRAM com bateria gravada
+     * em arquivo), ou remove com null.
+     */
+    public void setSramDevice(MemoryMappedDevice sramDevice) {
+        this.sramDevice = sramDevice;
+        this.sram = null;
+        mapCartridgePages();
+    }
+
+    public byte[] getSram() {
+        return sram;
+    }
+
+    private void mapInternal(int firstPage, int pageCount, byte[] data, int offset, boolean writable) {
+        for (int i = 0; i < pageCount; i++) {
+            setPage(firstPage + i, data, writable ? data : null, offset + (i << 8), null, true);
+        }
+    }
+
+    /**
+     * Mapeia páginas de CPU para um array, a partir de offset. Usado pelos mappers para
+     * bancos de PRG: trocar de banco é apenas chamar de novo com outro offset. Escritas em
+     * páginas somente leitura continuam indo para o dispositivo da página (registradores).
+     */
+    public void mapPages(int firstPage, int pageCount, byte[] data, int offset, boolean writable) {
+        for (int i = 0; i < pageCount; i++) {
+            int page = firstPage + i;
+            MemoryMappedDevice device = probedPages[page] ? ((ProbePage) writeDevices[page]).writeDevice : writeDevices[page];
+            setPage(page, data, writable ? data : null, offset + (i << 8), device, false);
+        }
+    }
+
+    // Mapeia páginas de CPU para um dispositivo (leituras e escritas)
+    public void mapDevice(int firstPage, int pageCount, MemoryMappedDevice device) {
+        for (int page = firstPage; page < firstPage + pageCount; page++) {
+            setPage(page, null, null, 0, device, false);
+        }
+    }
+
+    private void setPage(int page, byte[] readData, byte[] writeData, int offset, MemoryMappedDevice device,
+                         boolean monitored) {
+        readPages[page] = readData;
+        writePages[page] = writeData;
+        pageOffsets[page] = offset;
+        readDevices[page] = device;
+        writeDevices[page] = device;
+        monitoredPages[page] = monitored;
+        probedPages[page] = false;
+        if (shouldProbe(page)) {
+            installProbe(page);
+        }
+    }
+
+    // Com o monitor ligado: no modo de eventos só a memória do MemoryMap tem sonda,
+    // no mapa de calor todas as páginas têm. Gravando trace, todas também.
+    // Páginas com watchpoint têm sonda mesmo com o monitor desligado.
+    private boolean shouldProbe(int page) {
+        return allPagesProbed || (monitorProbes && monitoredPages[page]) || watchpoints.watchesPage(page);
+    }
+
+    // Reinstala as sondas conforme o estado atual do monitor (ligado, modo), do trace e dos watchpoints
+    private void updateProbes() {
+        boolean heatmap = monitor.isRecording() && monitor.getActiveMode() == MonitorAcessoMemoria.Mode.HEATMAP;
+        monitorProbes = monitor.isRecording();
+        probesInstalled = monitor.isRecording() || traceRecorder != null || watchpoints.hasAccessWatches();
+        allPagesProbed = heatmap || traceRecorder != null;
+        for (int page = 0; page < PAGE_COUNT; page++) {
+            if (probedPages[page]) {
+                removeProbe(page);
+            }
+            if (shouldProbe(page)) {
+                installProbe(page);
+            }
+        }
+        directRam = probesInstalled ? null : ram;
+        if (heatmap && traceRecorder != null) {
+            TraceRecorder recorder = traceRecorder;
+            executeProbe = address -> {
+                monitor.recordExecute(address);
+                recorder.recordExecute(address);
+            };
+        } else if (heatmap) {
+            executeProbe = monitor;
+        } else {
+            executeProbe = traceRecorder;
+        }
+        // a CPU só consulta os breakpoints (e informa o PC) quando há sonda de execução
+        if (executeProbe == null && watchpoints.isActive()) {
+            executeProbe = NO_EXECUTE_PROBE;
+        }
+    }
+
+    /**
+     * Aplica as mudanças pedidas ao monitor (ligar/desligar, modo) e aos watchpoints e troca
+     * as sondas. Deve ser chamado pela thread da emulação entre instruções: a tabela de
+     * páginas não é trocada enquanto a CPU a usa.
+     */
+    public void applyPendingChanges() {
+        boolean watchesChanged = watchpointsChanged;
+        watchpointsChanged = false;
+        if (monitor.applyPendingChanges() || watchesChanged) {
+            updateProbes();
+        }
+    }
+
+    /**
+     * Liga (ou desliga, com null) a gravação de todos os acessos do barramento num trace
+     * binário. Não fecha o gravador anterior.
+     */
+    public void setTraceRecorder(TraceRecorder recorder) {
+        this.traceRecorder = recorder;
+        updateProbes();
+    }
+
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    private void installProbe(int page) {
+        ProbePage probe = new ProbePage(readPages[page], writePages[page], pageOffsets[page],
+            readDevices[page], writeDevices[page], pageSegmentIds[page]);
+        readPages[page] = null;
+        writePages[page] = null;
+        readDevices[page] = probe;
+        writeDevices[page] = probe;
+        probedPages[page] = true;
+    }
+
+    private void removeProbe(int page) {
+        ProbePage probe = (ProbePage) readDevices[page];
+        readPages[page] = probe.readData;
+        writePages[page] = probe.writeData;
+        pageOffsets[page] = probe.offset;
+        readDevices[page] = probe.readDevice;
+        writeDevices[page] = probe.writeDevice;
+        probedPages[page] = false;
+    }
+
+    // Sonda: faz o acesso como a página original (array ou dispositivo) e o registra no monitor
+    private class ProbePage implements MemoryMappedDevice {
+        final byte[] readData;
+        final byte[] writeData;
+        final int offset;
+        final MemoryMappedDevice readDevice;
+        final MemoryMappedDevice writeDevice;
+        final int segmentId;
+
+        ProbePage(byte[] readData, byte[] writeData, int offset, MemoryMappedDevice readDevice,
+                  MemoryMappedDevice writeDevice, int segmentId) {
+            this.readData = readData;
+            this.writeData = writeData;
+            this.offset = offset;
+            this.readDevice = readDevice;
+            this.writeDevice = writeDevice;
+            this.segmentId = segmentId;
+        }
+
+        @Override
+        public int read(int address) {
+            int value = readData != null
+                ? Byte.toUnsignedInt(readData[offset + (address & 0xFF)])
+                : readDevice.read(address);
+            monitor.recordRead(address, value, segmentId);
+            if (traceRecorder != null) {
+                traceRecorder.recordRead(address, value);
+            }
+            watchpoints.onRead(address, value);
+            return value;
+        }
+
+        @Override
+        public void write(int address, int value) {
+            if (writeData != null) {
+                writeData[offset + (address & 0xFF)] = (byte) value;
+            } else if (writeDevice != null) {
+                writeDevice.write(address, value);
+            } else {
+                System.out.printf("[WARN] Write ignored (ROM) at 0x%04X in segment %s\n", address, pageSegments[address >>> 8].getName());
+                return;
+            }
+            monitor.recordWrite(address, value & 0xFF, segmentId);
+            if (traceRecorder != null) {
+                traceRecorder.recordWrite(address, value & 0xFF);
+            }
+            watchpoints.onWrite(address, value & 0xFF);
+        }
+    }
+
+    // Página 0x40: $4000-$401F são APU/controles, o resto pertence ao cartucho
+    private class IoPage implements MemoryMappedDevice {
+        @Override
+        public int read(int address) {
+            if (address <= 0x401F) {
+                if (apuHandler != null) {
+                    return apuHandler.read(address);
+                }
+            } else if (mapper != null) {
+                return mapper.cpuRead(address) & 0xFF;
+            }
+            return address <= 0x401F ? Byte.toUnsignedInt(ioRegisters[address & 0x1F]) : 0;
+        }
+
+        @Override
+        public void write(int address, int value) {
+            if (address <= 0x401F) {
+                if (apuHandler != null) {
+                    apuHandler.write(address, value);
+                    return;
+                }
+            } else if (mapper != null) {
+                mapper.cpuWrite(address, value);
+                return;
+            } else {
+                System.out.printf("[WARN] Write ignored (ROM) at 0x%04X in segment %s\n", address, expansionSegment.getName());
+                return;
+            }
+            ioRegisters[address & 0x1F] = (byte) value;
+        }
     }
 
     // NES suporta cartuchos de 16 e 32kb
@@ -58,94 +487,122 @@ public class MemoryMap {
         if (mapper != null) {
             return;
         }
-        // se 16kb a rom será espelhada
-        if (prgRom.length == 0x4000) {
-            System.arraycopy(prgRom, 0, addressSpace, 0x8000, 0x4000);
-            System.arraycopy(prgRom, 0, addressSpace, 0xC000, 0x4000);
-        // se 32kb a rom será carregada inteira
-        } else if (prgRom.length == 0x8000) {
-            System.arraycopy(prgRom, 0, addressSpace, 0x8000, 0x8000);
-        } else {
+        // 16kb fica espelhada nas duas metades, 32kb ocupa $8000-$FFFF inteiro
+        if (prgRom.length != 0x4000 && prgRom.length != 0x8000) {
             throw new IllegalArgumentException("Unsupported PRG-ROM size: " + prgRom.length);
         }
+        this.prgRom = prgRom;
+        mapCartridgePages();
+        notifyBankSwitch(0x8000, 0xFFFF);
     }
 
-    // para teste - carrega código diretamente sem proteção ROM
+    // para teste - carrega código diretamente sem proteção ROM (RAM, SRAM ou PRG sem mapper)
     public void loadTestProgram(int startAddress, byte[] program) {
-        System.arraycopy(program, 0, addressSpace, startAddress, program.length);
+        for (int i = 0; i < program.length; i++) {
+            int address = startAddress + i;
+            if (address < RAM_MIRRORS_END) {
+                ram[address & RAM_MASK] = program[i];
+            } else if (address >= 0x6000 && address < 0x8000 && sram != null) {
+                sram[(address - 0x6000) & (sram.length - 1)] = program[i];
+            } else if (address >= 0x6000 && address < 0x8000 && sramDevice != null) {
+                sramDevice.write(address, program[i] & 0xFF);
+            } else if (address >= 0x8000 && address <= 0xFFFF && mapper == null) {
+                if (prgRom == null) {
+                    prgRom = new byte[0x8000];
+                    mapCartridgePages();
+                }
+                prgRom[(address - 0x8000) & (prgRom.length - 1)] = program[i];
+            } else {
+                throw new IllegalArgumentException(String.format("No memory for test program at 0x%04X", address));
+            }
+        }
+        if (program.length > 0) {
+            notifyBankSwitch(startAddress, startAddress + program.length - 1);
+        }
     }
 
     //valida um endereço e converte para int
     public int readByte(int address) {
-        if (address < 0 || address >= MEMORY_SIZE) {
+        if ((address & ~0xFFFF) != 0) {
             throw new IllegalArgumentException("Invalid memory read: 0x" + Integer.toHexString(address));
         }
 
-        if (address >= 0x2000 && address <= 0x3FFF && ppuHandler != null) {
-            return ppuHandler.read(address);
+        int page = address >>> 8;
+        byte[] data = readPages[page];
+        if (data == null) {
+            return readDevices[page].read(address);
         }
-
-        if (address >= 0x4000 && address <= 0x401F && apuHandler != null) {
-            return apuHandler.read(address);
-        }
-
-        if (address >= 0x4020 && mapper != null) {
-            return mapper.cpuRead(address) & 0xFF;
-        }
-
-        int value = Byte.toUnsignedInt(addressSpace[address]);
-        
-        // Registra a leitura no monitor
-        MemorySegment seg = getSegment(address);
-        String segmentName = seg != null ? seg.getName() : "Unknown";
-        monitor.recordRead(address, value, segmentName);
-        
-        return value;
+        return Byte.toUnsignedInt(data[pageOffsets[page] + (address & 0xFF)]);
     }
 
     // verifica se o endereço é válido, se for read only ignora se não escreve no array
     public void writeByte(int address, int value) {
-        if (address < 0 || address >= MEMORY_SIZE) {
+        if ((address & ~0xFFFF) != 0) {
             throw new IllegalArgumentException("Invalid memory write: 0x" + Integer.toHexString(address));
         }
 
-        if (address >= 0x2000 && address <= 0x3FFF && ppuHandler != null) {
-            ppuHandler.write(address, value);
-            return;
-        }
-
-        if (address >= 0x4000 && address <= 0x401F && apuHandler != null) {
-            apuHandler.write(address, value);
-            return;
-        }
-
-        if (address >= 0x4020 && mapper != null) {
-            mapper.cpuWrite(address, value);
+        int page = address >>> 8;
+        byte[] data = writePages[page];
+        if (data == null) {
+            MemoryMappedDevice device = writeDevices[page];
+            if (device != null) {
+                device.write(address, value);
+            } else {
+                System.out.printf("[WARN] Write ignored (ROM) at 0x%04X in segment %s\n", address, pageSegments[page].getName());
+            }
             return;
         }
+        data[pageOffsets[page] + (address & 0xFF)] = (byte) value;
+    }
 
-        MemorySegment seg = getSegment(address);
-        String segmentName = seg != null ? seg.getName() : "Unknown";
-        
-        if (seg != null && seg.isReadOnly()) {
-            System.out.printf("[WARN] Write ignored (ROM) at 0x%04X in segment %s\n", address, seg.getName());
-            return;
+    /**
+     * Copia os 256 bytes de uma página direto do array que a serve (RAM, SRAM, PRG), para
+     * transferências em bloco como o DMA de OAM. Retorna false se a página é servida por
+     * um dispositivo ou tem sonda; aí o chamador deve ler byte a byte com readByte.
+     */
+    public boolean copyPage(int page, byte[] dest, int destOffset) {
+        byte[] data = readPages[page & 0xFF];
+        if (data == null) {
+            return false;
         }
-        
-        addressSpace[address] = (byte) (value & 0xFF);
-        
-        // Registra a escrita no monitor
-        monitor.recordWrite(address, value & 0xFF, segmentName);
+        System.arraycopy(data, pageOffsets[page & 0xFF], dest, destOffset, 0x100);
+        return true;
     }
 
     // procura em qual bloco o endereço está
     public MemorySegment getSegment(int address) {
-        for (MemorySegment s : segments) {
-            if (address >= s.getStart() && address <= s.getEnd()) {
-                return s;
-            }
+        if ((address & ~0xFFFF) != 0) {
+            return null;
         }
-        return null;
+        if (address >= 0x4020 && address <= 0x40FF) {
+            return expansionSegment;
+        }
+        return pageSegments[address >>> 8];
+    }
+
+    /**
+     * Array da RAM interna para acesso direto pela CPU, ou null enquanto o monitor estiver
+     * ligado (aí os acessos precisam passar por readByte/writeByte para serem registrados).
+     */
+    public byte[] getDirectRam() {
+        return directRam;
+    }
+
+    // Quem avisar de cada instrução executada (mapa de calor ou trace ligado), ou null
+    public ExecutionProbe getExecuteProbe() {
+        return executeProbe;
+    }
+
+    // Há sondas do monitor, do trace ou do depurador? (caminhos rápidos que pulam acessos ficam desligados)
+    public boolean isInstrumented() {
+        return probesInstalled || executeProbe != null;
+    }
+
+    /**
+     * Watchpoints e breakpoints do depurador
+     */
+    public Watchpoints getWatchpoints() {
+        return watchpoints;
     }
 
     /**
@@ -1,39 +1,69 @@
 package Memory;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 /**
  * Monitor de acessos à memória em tempo real
  * Registra todas as operações de leitura e escrita
+ *
+ * Os acessos ficam num buffer circular de longs empacotados, escrito apenas pela thread
+ * da emulação (um único produtor) sem alocação e sem locks. O índice de escrita é
+ * publicado com semântica release; leitores (ex.: MemoryViewer) copiam o buffer e
+ * descartam o que tiver sido sobrescrito durante a cópia.
+ *
+ * No modo HEATMAP, em vez de eventos, o monitor soma leituras, escritas e execuções por
+ * endereço (64K contadores de cada) durante o frame. Os contadores têm buffer duplo:
+ * endFrame() publica o frame completo e a emulação segue contando no outro buffer.
  */
-public class MonitorAcessoMemoria {
-    
+public class MonitorAcessoMemoria implements ExecutionProbe {
+
     public enum AccessType {
         READ, WRITE
     }
-    
+
+    public enum Mode {
+        EVENTS, HEATMAP
+    }
+
+    // Contadores de um frame do mapa de calor, indexados por endereço
+    public static final class HeatmapFrame {
+        final int[] reads = new int[0x10000];
+        final int[] writes = new int[0x10000];
+        final int[] executes = new int[0x10000];
+
+        void clear() {
+            Arrays.fill(reads, 0);
+            Arrays.fill(writes, 0);
+            Arrays.fill(executes, 0);
+        }
+    }
+
     public static class MemoryAccess {
-        private final long timestamp;
+        private final long cycle;
         private final int address;
         private final int value;
         private final AccessType type;
         private final String segmentName;
-        
-        public MemoryAccess(int address, int value, AccessType type, String segmentName) {
-            this.timestamp = System.nanoTime();
+
+        public MemoryAccess(long cycle, int address, int value, AccessType type, String segmentName) {
+            this.cycle = cycle;
             this.address = address;
             this.value = value;
             this.type = type;
             this.segmentName = segmentName;
         }
-        
-        public long getTimestamp() { return timestamp; }
+
+        public long getCycle() { return cycle; }
         public int getAddress() { return address; }
         public int getValue() { return value; }
         public AccessType getType() { return type; }
         public String getSegmentName() { return segmentName; }
-        
+
         @Override
         public String toString() {
             return String.format("[%s] 0x%04X %s 0x%02X (%s)",
@@ -45,161 +75,365 @@ public class MonitorAcessoMemoria {
             );
         }
     }
-    
-    private final List<MemoryAccess> accessHistory;
+
+    // Layout de um registro: endereço (16 bits), valor (8), tipo (1), segmento (4), ciclo (35)
+    private static final int VALUE_SHIFT = 16;
+    private static final int TYPE_SHIFT = 24;
+    private static final int SEGMENT_SHIFT = 25;
+    private static final int CYCLE_SHIFT = 29;
+    private static final long TYPE_WRITE = 1L << TYPE_SHIFT;
+    private static final int SEGMENT_MASK = 0x0F;
+    private static final int TYPE_NONE = -1;
+
+    private static final VarHandle WRITE_INDEX;
+    private static final VarHandle RECORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            WRITE_INDEX = MethodHandles.lookup().findVarHandle(MonitorAcessoMemoria.class, "writeIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] records;
+    private final int mask;
     private final int maxHistorySize;
+    private long writeIndex;         // total de registros já escritos (só o produtor altera)
+    private volatile long clearIndex; // registros antes deste índice foram descartados por clear()
+    // Ligado/desligado e modo: o estado em uso pela emulação e o pedido (de qualquer thread),
+    // que só vale quando o MemoryMap o aplica entre instruções, junto com a troca das sondas
     private boolean enabled;
+    private volatile boolean requestedEnabled;
+    private volatile boolean changePending;
     private long totalReads;
     private long totalWrites;
-    
+    private volatile long readsAtClear;
+    private volatile long writesAtClear;
+
+    // Nomes dos segmentos, indexados pelo id gravado em cada registro
+    private String[] segmentNames = new String[0];
+    // Fonte do carimbo de ciclo de cada acesso
+    private LongSupplier cycleSource = () -> 0;
+    // Mapa de calor: frame sendo contado (só a emulação escreve) e último frame publicado
+    private Mode mode = Mode.EVENTS;
+    private volatile Mode requestedMode = Mode.EVENTS;
+    private HeatmapFrame heatmapBack;
+    private volatile HeatmapFrame heatmapFront;
+    private volatile long heatmapFrames;
+
     // Filtros opcionais
-    private Integer filterAddressStart;
-    private Integer filterAddressEnd;
-    private AccessType filterType;
-    
+    private int filterAddressStart = 0x0000;
+    private int filterAddressEnd = 0xFFFF;
+    private int filterType = TYPE_NONE;
+
     public MonitorAcessoMemoria() {
         this(10000); // Mantém últimos 10000 acessos
     }
-    
+
     public MonitorAcessoMemoria(int maxHistorySize) {
         this.maxHistorySize = maxHistorySize;
-        this.accessHistory = new ArrayList<>();
+        // capacidade em potência de 2 para indexar com máscara
+        int capacity = Integer.highestOneBit(Math.max(1, maxHistorySize - 1)) << 1;
+        this.records = new long[capacity];
+        this.mask = capacity - 1;
         this.enabled = true;
-        this.totalReads = 0;
-        this.totalWrites = 0;
+        this.requestedEnabled = true;
+    }
+
+    // Define os nomes dos segmentos usados nos registros (id = posição no array)
+    public void setSegmentNames(String[] names) {
+        this.segmentNames = names.clone();
     }
-    
+
+    // Define de onde vem o ciclo gravado em cada acesso (ex.: ciclos da CPU)
+    public void setCycleSource(LongSupplier cycleSource) {
+        this.cycleSource = cycleSource;
+    }
+
     // Registra um acesso de leitura
-    public void recordRead(int address, int value, String segmentName) {
+    public void recordRead(int address, int value, int segmentId) {
         if (!enabled) return;
-        
+
         totalReads++;
-        
-        // Aplica filtros se configurados
-        if (shouldFilter(address, AccessType.READ)) {
+
+        HeatmapFrame heatmap = heatmapBack;
+        if (heatmap != null) {
+            heatmap.reads[address]++;
             return;
         }
-        
-        synchronized (accessHistory) {
-            MemoryAccess access = new MemoryAccess(address, value, AccessType.READ, segmentName);
-            accessHistory.add(access);
-            
-            // Mantém o tamanho do histórico limitado
-            if (accessHistory.size() > maxHistorySize) {
-                accessHistory.remove(0);
-            }
+
+        // Aplica filtros se configurados
+        if (shouldFilter(address, AccessType.READ.ordinal())) {
+            return;
         }
+
+        append(address, value, 0, segmentId);
     }
-    
-    // Registra um acesso de leitura
-    public void recordWrite(int address, int value, String segmentName) {
+
+    // Registra um acesso de escrita
+    public void recordWrite(int address, int value, int segmentId) {
         if (!enabled) return;
-        
+
         totalWrites++;
-        
+
+        HeatmapFrame heatmap = heatmapBack;
+        if (heatmap != null) {
+            heatmap.writes[address]++;
+            return;
+        }
+
         // Aplica filtros se configurados
-        if (shouldFilter(address, AccessType.WRITE)) {
+        if (shouldFilter(address, AccessType.WRITE.ordinal())) {
             return;
         }
-        
-        synchronized (accessHistory) {
-            MemoryAccess access = new MemoryAccess(address, value, AccessType.WRITE, segmentName);
-            accessHistory.add(access);
-            
-            // Mantém o tamanho do histórico limitado
-            if (accessHistory.size() > maxHistorySize) {
-                accessHistory.remove(0);
+
+        append(address, value, TYPE_WRITE, segmentId);
+    }
+
+    // Registra a execução de uma instrução em address (só conta no mapa de calor)
+    @Override
+    public void recordExecute(int address) {
+        HeatmapFrame heatmap = heatmapBack;
+        if (heatmap != null) {
+            heatmap.executes[address]++;
+        }
+    }
+
+    /**
+     * Fim de frame: publica os contadores do frame e zera o outro buffer para o próximo.
+     * Chamado pela thread da emulação.
+     */
+    public void endFrame() {
+        HeatmapFrame finished = heatmapBack;
+        if (finished == null) {
+            return;
+        }
+        HeatmapFrame next = heatmapFront;
+        heatmapFront = finished;
+        heatmapFrames++;
+        // o contador de frames precisa ficar visível antes de o buffer antigo ser zerado
+        VarHandle.storeStoreFence();
+        next.clear();
+        heatmapBack = next;
+    }
+
+    /**
+     * Copia os contadores do último frame completo. Se a emulação publicar outro frame
+     * durante a cópia, copia de novo. Retorna o número do frame copiado, ou -1 se o
+     * mapa de calor ainda não tem frames.
+     */
+    public long copyHeatmap(int[] reads, int[] writes, int[] executes) {
+        while (true) {
+            long frame = heatmapFrames;
+            HeatmapFrame source = heatmapFront;
+            if (frame == 0 || source == null) {
+                return -1;
+            }
+            System.arraycopy(source.reads, 0, reads, 0, reads.length);
+            System.arraycopy(source.writes, 0, writes, 0, writes.length);
+            System.arraycopy(source.executes, 0, executes, 0, executes.length);
+            VarHandle.loadLoadFence();
+            if (heatmapFrames == frame) {
+                return frame;
             }
         }
     }
-    
-    // Verifica se o acesso deve ser filtrado
-    private boolean shouldFilter(int address, AccessType type) {
-        if (filterType != null && filterType != type) {
-            return true;
+
+    // Troca entre log de eventos e mapa de calor (vale a partir da próxima instrução da emulação)
+    public void setMode(Mode mode) {
+        requestedMode = mode;
+        changePending = true;
+    }
+
+    // Modo pedido por setMode, mesmo que a emulação ainda não o tenha aplicado
+    public Mode getMode() {
+        return requestedMode;
+    }
+
+    // Modo em uso pela emulação
+    Mode getActiveMode() {
+        return mode;
+    }
+
+    private void applyMode(Mode mode) {
+        if (mode == this.mode) {
+            return;
+        }
+        this.mode = mode;
+        if (mode == Mode.HEATMAP) {
+            heatmapFrames = 0;
+            heatmapFront = new HeatmapFrame();
+            heatmapBack = new HeatmapFrame();
+        } else {
+            heatmapBack = null;
+            heatmapFront = null;
         }
-        
-        if (filterAddressStart != null && address < filterAddressStart) {
-            return true;
+    }
+
+    // Grava o registro e publica o novo índice (release) para os leitores
+    private void append(int address, int value, long type, int segmentId) {
+        long record = (address & 0xFFFFL)
+            | ((long) (value & 0xFF) << VALUE_SHIFT)
+            | type
+            | ((long) (segmentId & SEGMENT_MASK) << SEGMENT_SHIFT)
+            | (cycleSource.getAsLong() << CYCLE_SHIFT);
+        long index = writeIndex;
+        RECORDS.setOpaque(records, (int) index & mask, record);
+        WRITE_INDEX.setRelease(this, index + 1);
+    }
+
+    // Verifica se o acesso deve ser filtrado
+    private boolean shouldFilter(int address, int type) {
+        return (filterType != TYPE_NONE && filterType != type)
+            || address < filterAddressStart
+            || address > filterAddressEnd;
+    }
+
+    /**
+     * Copia os últimos registros empacotados para dest, do mais antigo ao mais novo,
+     * sem bloquear o produtor. Retorna quantos registros foram copiados.
+     */
+    public int snapshot(long[] dest) {
+        long end = (long) WRITE_INDEX.getAcquire(this);
+        long start = Math.max(Math.max(end - dest.length, end - maxHistorySize), clearIndex);
+        for (long i = start; i < end; i++) {
+            dest[(int) (i - start)] = (long) RECORDS.getOpaque(records, (int) i & mask);
         }
-        
-        if (filterAddressEnd != null && address > filterAddressEnd) {
-            return true;
+        // Registros sobrescritos pelo produtor durante a cópia são descartados (inclusive
+        // o que ele pode estar escrevendo agora, ainda não publicado)
+        VarHandle.loadLoadFence();
+        long overwrittenBefore = (long) WRITE_INDEX.getAcquire(this) - records.length + 1;
+        if (overwrittenBefore > start) {
+            int lost = (int) Math.min(overwrittenBefore - start, end - start);
+            System.arraycopy(dest, lost, dest, 0, (int) (end - start) - lost);
+            return (int) (end - start) - lost;
         }
-        
-        return false;
+        return (int) (end - start);
     }
-    
+
+    // Campos de um registro empacotado
+    public static int addressOf(long record) {
+        return (int) record & 0xFFFF;
+    }
+
+    public static int valueOf(long record) {
+        return (int) (record >>> VALUE_SHIFT) & 0xFF;
+    }
+
+    public static AccessType typeOf(long record) {
+        return (record & TYPE_WRITE) != 0 ? AccessType.WRITE : AccessType.READ;
+    }
+
+    public static int segmentOf(long record) {
+        return (int) (record >>> SEGMENT_SHIFT) & SEGMENT_MASK;
+    }
+
+    public static long cycleOf(long record) {
+        return record >>> CYCLE_SHIFT;
+    }
+
+    // Nome do segmento gravado no registro
+    public String segmentNameOf(long record) {
+        int id = segmentOf(record);
+        return id < segmentNames.length ? segmentNames[id] : "Unknown";
+    }
+
+    // Índice do próximo registro (total de acessos já gravados no buffer)
+    public long getWriteIndex() {
+        return (long) WRITE_INDEX.getAcquire(this);
+    }
+
     // Obtem o histórico de acessos
     public List<MemoryAccess> getAccessHistory() {
-        synchronized (accessHistory) {
-            return new ArrayList<>(accessHistory);
-        }
+        return getRecentAccesses(maxHistorySize);
     }
-    
+
     // Obtem os últimos N acessos
     public List<MemoryAccess> getRecentAccesses(int count) {
-        synchronized (accessHistory) {
-            int size = accessHistory.size();
-            int start = Math.max(0, size - count);
-            return new ArrayList<>(accessHistory.subList(start, size));
+        long[] buffer = new long[Math.max(0, Math.min(count, maxHistorySize))];
+        int size = snapshot(buffer);
+        List<MemoryAccess> accesses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long record = buffer[i];
+            accesses.add(new MemoryAccess(cycleOf(record), addressOf(record), valueOf(record),
+                typeOf(record), segmentNameOf(record)));
         }
+        return accesses;
     }
-    
-    // Limpa o histórico
+
+    // Limpa o histórico (não mexe no buffer: o produtor continua sendo o único escritor)
     public void clear() {
-        synchronized (accessHistory) {
-            accessHistory.clear();
-        }
-        totalReads = 0;
-        totalWrites = 0;
+        clearIndex = getWriteIndex();
+        readsAtClear = totalReads;
+        writesAtClear = totalWrites;
     }
-    
-    // Ativa ou desativa o monitor
+
+    // Ativa ou desativa o monitor (vale a partir da próxima instrução da emulação)
     public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
+        requestedEnabled = enabled;
+        changePending = true;
     }
-    
+
+    // Estado pedido por setEnabled, mesmo que a emulação ainda não o tenha aplicado
     public boolean isEnabled() {
+        return requestedEnabled;
+    }
+
+    // Estado em uso pela emulação
+    boolean isRecording() {
         return enabled;
     }
-    
+
+    /**
+     * Aplica os pedidos pendentes de setEnabled e setMode. Chamado pelo MemoryMap na thread da
+     * emulação; retorna true se havia pedido (as sondas precisam ser trocadas).
+     */
+    boolean applyPendingChanges() {
+        if (!changePending) {
+            return false;
+        }
+        changePending = false;
+        enabled = requestedEnabled;
+        applyMode(requestedMode);
+        return true;
+    }
+
     // Configura filtro por faixa de endereços
-    public void setAddressFilter(Integer start, Integer end) {
+    public void setAddressFilter(int start, int end) {
         this.filterAddressStart = start;
         this.filterAddressEnd = end;
     }
-    
+
     // Configura filtro por tipo de acesso
     public void setTypeFilter(AccessType type) {
-        this.filterType = type;
+        this.filterType = type != null ? type.ordinal() : TYPE_NONE;
     }
-    
+
     // Limpa todos os filtros
     public void limparFiltros() {
-        this.filterAddressStart = null;
-        this.filterAddressEnd = null;
-        this.filterType = null;
+        this.filterAddressStart = 0x0000;
+        this.filterAddressEnd = 0xFFFF;
+        this.filterType = TYPE_NONE;
     }
-    
+
     // Obtém estatísticas
     public long getTotalReads() {
-        return totalReads;
+        return totalReads - readsAtClear;
     }
-    
+
     public long getTotalWrites() {
-        return totalWrites;
+        return totalWrites - writesAtClear;
     }
-    
+
     public int getHistorySize() {
-        synchronized (accessHistory) {
-            return accessHistory.size();
-        }
+        long end = getWriteIndex();
+        return (int) Math.min(end - clearIndex, maxHistorySize);
     }
-    
+
     // Obtém estatísticas resumidas
     public String getStatistics() {
         return String.format("Total: %d reads, %d writes | History: %d/%d",
-            totalReads, totalWrites, getHistorySize(), maxHistorySize);
+            getTotalReads(), getTotalWrites(), getHistorySize(), maxHistorySize);
     }
 }
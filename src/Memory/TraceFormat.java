@@ -0,0 +1,87 @@
+package Memory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Formato binário dos segmentos de trace (TraceRecorder / TraceReader).
+ *
+ * Cabeçalho de 32 bytes, little-endian:
+ *   0  "NEST"            magia
+ *   4  int   versão
+ *   8  int   tamanho do registro (8)
+ *   12 int   reservado
+ *   16 long  ciclo da CPU no início do segmento
+ *   24 long  número de registros (-1 enquanto o segmento está sendo gravado)
+ *
+ * Registros de 8 bytes (um long):
+ *   bits 0-15  endereço
+ *   bits 16-23 valor
+ *   bits 24-25 tipo (1 = leitura, 2 = escrita, 3 = execução)
+ *   bits 26-63 ciclo da CPU
+ * Um registro zerado (tipo 0) marca o fim dos dados num segmento não finalizado.
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x5453454E; // "NEST" em little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 8;
+    static final int FIRST_CYCLE_OFFSET = 16;
+    static final int COUNT_OFFSET = 24;
+    static final long COUNT_UNKNOWN = -1;
+
+    static final int TYPE_READ = 1;
+    static final int TYPE_WRITE = 2;
+    static final int TYPE_EXECUTE = 3;
+
+    private static final int CYCLE_SHIFT = 26;
+    static final long MAX_CYCLE = -1L >>> CYCLE_SHIFT;
+
+    private TraceFormat() {
+    }
+
+    static Path segmentPath(Path directory, String name, int index) {
+        return directory.resolve(String.format("%s-%05d.trace", name, index));
+    }
+
+    static long pack(long cycle, int address, int value, int type) {
+        return (cycle << CYCLE_SHIFT)
+            | ((long) type << 24)
+            | ((long) (value & 0xFF) << 16)
+            | (address & 0xFFFF);
+    }
+
+    static int addressOf(long record) {
+        return (int) record & 0xFFFF;
+    }
+
+    static int valueOf(long record) {
+        return (int) (record >>> 16) & 0xFF;
+    }
+
+    static int typeOf(long record) {
+        return (int) (record >>> 24) & 0x3;
+    }
+
+    static long cycleOf(long record) {
+        return record >>> CYCLE_SHIFT;
+    }
+
+    static char typeChar(int type) {
+        switch (type) {
+            case TYPE_READ: return 'R';
+            case TYPE_WRITE: return 'W';
+            case TYPE_EXECUTE: return 'X';
+            default: return '?';
+        }
+    }
+
+    static void writeHeader(ByteBuffer buffer, long firstCycle, long count) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+        buffer.putInt(12, 0);
+        buffer.putLong(FIRST_CYCLE_OFFSET, firstCycle);
+        buffer.putLong(COUNT_OFFSET, count);
+    }
+}
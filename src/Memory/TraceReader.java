@@ -0,0 +1,175 @@
+package Memory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lê os segmentos gravados pelo TraceRecorder em ordem, filtrando por faixa de endereços,
+ * janela de ciclos e tipo de acesso. Os segmentos são mapeados um de cada vez, então o
+ * trace pode ser bem maior que a memória disponível.
+ *
+ * Uso: java Memory.TraceReader <diretório> <nome> [--from 0xADDR] [--to 0xADDR]
+ *          [--start ciclo] [--end ciclo] [--type R|W|X] [--limit n]
+ */
+public class TraceReader {
+
+    public interface AccessVisitor {
+        // Retorna false para interromper a leitura
+        boolean access(long cycle, int address, int value, char type);
+    }
+
+    private final Path directory;
+    private final String name;
+
+    private int fromAddress = 0x0000;
+    private int toAddress = 0xFFFF;
+    private long startCycle = 0;
+    private long endCycle = TraceFormat.MAX_CYCLE;
+    private int type = 0; // 0 = todos
+
+    public TraceReader(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    public void setAddressRange(int from, int to) {
+        this.fromAddress = from;
+        this.toAddress = to;
+    }
+
+    public void setCycleWindow(long start, long end) {
+        this.startCycle = start;
+        this.endCycle = end;
+    }
+
+    // 'R', 'W', 'X' ou 0 para todos
+    public void setType(char typeChar) {
+        switch (Character.toUpperCase(typeChar)) {
+            case 'R': type = TraceFormat.TYPE_READ; break;
+            case 'W': type = TraceFormat.TYPE_WRITE; break;
+            case 'X': type = TraceFormat.TYPE_EXECUTE; break;
+            case 0: type = 0; break;
+            default: throw new IllegalArgumentException("Tipo de acesso inválido: " + typeChar);
+        }
+    }
+
+    /**
+     * Percorre os acessos que passam nos filtros, em ordem de gravação.
+     * Retorna quantos acessos foram entregues ao visitor.
+     */
+    public long scan(AccessVisitor visitor) throws IOException {
+        List<Path> files = segmentFiles();
+        long matches = 0;
+        for (int i = 0; i < files.size(); i++) {
+            // os ciclos só crescem: se o próximo segmento começa antes da janela, este pode ser pulado
+            if (i + 1 < files.size() && firstCycleOf(files.get(i + 1)) < startCycle) {
+                continue;
+            }
+            MappedByteBuffer buffer = map(files.get(i));
+            long count = buffer.getLong(TraceFormat.COUNT_OFFSET);
+            long available = (buffer.capacity() - TraceFormat.HEADER_BYTES) / TraceFormat.RECORD_BYTES;
+            if (count < 0 || count > available) {
+                count = available;
+            }
+            for (long r = 0; r < count; r++) {
+                long record = buffer.getLong(TraceFormat.HEADER_BYTES + (int) (r * TraceFormat.RECORD_BYTES));
+                int recordType = TraceFormat.typeOf(record);
+                if (recordType == 0) {
+                    break; // fim de um segmento que não foi finalizado
+                }
+                long cycle = TraceFormat.cycleOf(record);
+                if (cycle > endCycle) {
+                    return matches;
+                }
+                int address = TraceFormat.addressOf(record);
+                if (cycle < startCycle || address < fromAddress || address > toAddress
+                        || (type != 0 && recordType != type)) {
+                    continue;
+                }
+                matches++;
+                if (!visitor.access(cycle, address, TraceFormat.valueOf(record), TraceFormat.typeChar(recordType))) {
+                    return matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Segmentos existentes, do mais antigo ao mais novo (os primeiros podem ter sido apagados)
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        String prefix = name + "-";
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(p -> {
+                    String file = p.getFileName().toString();
+                    return file.startsWith(prefix) && file.endsWith(".trace");
+                })
+                .sorted()
+                .forEach(files::add);
+        }
+        return files;
+    }
+
+    private long firstCycleOf(Path file) throws IOException {
+        return map(file).getLong(TraceFormat.FIRST_CYCLE_OFFSET);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < TraceFormat.HEADER_BYTES || buffer.getInt(0) != TraceFormat.MAGIC) {
+                throw new IOException("Não é um segmento de trace: " + file);
+            }
+            if (buffer.getInt(4) != TraceFormat.VERSION) {
+                throw new IOException("Versão de trace não suportada em " + file + ": " + buffer.getInt(4));
+            }
+            return buffer;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: java Memory.TraceReader <diretório> <nome> [--from 0xADDR] [--to 0xADDR]"
+                + " [--start ciclo] [--end ciclo] [--type R|W|X] [--limit n]");
+            return;
+        }
+        TraceReader reader = new TraceReader(Paths.get(args[0]), args[1]);
+        int from = 0x0000;
+        int to = 0xFFFF;
+        long start = 0;
+        long end = TraceFormat.MAX_CYCLE;
+        long limit = Long.MAX_VALUE;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--from": from = Integer.decode(value); break;
+                case "--to": to = Integer.decode(value); break;
+                case "--start": start = Long.parseLong(value); break;
+                case "--end": end = Long.parseLong(value); break;
+                case "--type": reader.setType(value.charAt(0)); break;
+                case "--limit": limit = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        reader.setAddressRange(from, to);
+        reader.setCycleWindow(start, end);
+
+        long[] printed = {0};
+        long maxPrinted = limit;
+        long total = reader.scan((cycle, address, value, type) -> {
+            System.out.printf("%12d  %c  0x%04X  0x%02X%n", cycle, type, address, value);
+            return ++printed[0] < maxPrinted;
+        });
+        System.out.println(total + " acessos");
+    }
+}
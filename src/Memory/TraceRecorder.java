@@ -0,0 +1,127 @@
+package Memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.function.LongSupplier;
+
+/**
+ * Grava todos os acessos do barramento num log binário em arquivos mapeados em memória.
+ *
+ * Cada acesso vira um registro de 8 bytes (ver TraceFormat). Os registros vão para
+ * segmentos de tamanho fixo, nome-00000.trace, nome-00001.trace, ...; quando um segmento
+ * enche, abre-se o próximo. Com maxSegments > 0 só os últimos segmentos são mantidos
+ * (os mais antigos são apagados), limitando o espaço em disco de gravações longas.
+ * Cada instrução gera um registro de execução seguido das leituras do opcode e dos
+ * operandos e dos acessos que ela fizer (com o trace ligado a CPU não usa o DecodeCache).
+ *
+ * Usado apenas pela thread da emulação, através das sondas do MemoryMap.
+ */
+public class TraceRecorder implements ExecutionProbe, Closeable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20; // 64MB = 8M acessos
+
+    private final Path directory;
+    private final String name;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final LongSupplier cycleSource;
+    private final ArrayDeque<Path> segments = new ArrayDeque<>();
+
+    private MappedByteBuffer buffer;
+    private int segmentIndex = -1;
+    private long records;
+    private boolean closed;
+
+    public TraceRecorder(Path directory, String name, LongSupplier cycleSource) throws IOException {
+        this(directory, name, DEFAULT_SEGMENT_BYTES, 0, cycleSource);
+    }
+
+    public TraceRecorder(Path directory, String name, int segmentBytes, int maxSegments,
+                         LongSupplier cycleSource) throws IOException {
+        if (segmentBytes < TraceFormat.HEADER_BYTES + TraceFormat.RECORD_BYTES) {
+            throw new IllegalArgumentException("Segmento pequeno demais: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.name = name;
+        // o espaço depois do cabeçalho é múltiplo do tamanho do registro
+        this.segmentBytes = segmentBytes - (segmentBytes - TraceFormat.HEADER_BYTES) % TraceFormat.RECORD_BYTES;
+        this.maxSegments = maxSegments;
+        this.cycleSource = cycleSource;
+        Files.createDirectories(directory);
+        openSegment();
+    }
+
+    public void recordRead(int address, int value) {
+        append(address, value, TraceFormat.TYPE_READ);
+    }
+
+    public void recordWrite(int address, int value) {
+        append(address, value, TraceFormat.TYPE_WRITE);
+    }
+
+    @Override
+    public void recordExecute(int address) {
+        append(address, 0, TraceFormat.TYPE_EXECUTE);
+    }
+
+    private void append(int address, int value, int type) {
+        if (closed) {
+            // o segmento já foi finalizado; acessos atrasados são descartados
+            return;
+        }
+        if (!buffer.hasRemaining()) {
+            try {
+                finishSegment();
+                openSegment();
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException("Falha ao abrir segmento de trace", e);
+            }
+        }
+        buffer.putLong(TraceFormat.pack(cycleSource.getAsLong(), address, value, type));
+        records++;
+    }
+
+    // Total de acessos gravados desde o início
+    public long getRecordCount() {
+        return records;
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        Path file = TraceFormat.segmentPath(directory, name, segmentIndex);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // o mapeamento continua válido depois de fechar o canal
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        TraceFormat.writeHeader(buffer, cycleSource.getAsLong(), TraceFormat.COUNT_UNKNOWN);
+        buffer.position(TraceFormat.HEADER_BYTES);
+
+        segments.addLast(file);
+        if (maxSegments > 0 && segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.removeFirst());
+        }
+    }
+
+    // Grava no cabeçalho quantos registros o segmento tem e descarrega para o disco
+    private void finishSegment() {
+        long count = (buffer.position() - TraceFormat.HEADER_BYTES) / TraceFormat.RECORD_BYTES;
+        buffer.putLong(TraceFormat.COUNT_OFFSET, count);
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            finishSegment();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package Memory;
+
+import java.util.Arrays;
+
+/**
+ * Watchpoints de leitura/escrita e breakpoints de execução para depuração.
+ *
+ * Cada tipo é um bitset de 64K bits (um bit por endereço). Páginas com watchpoint ganham
+ * uma sonda no MemoryMap, como as do monitor; sem nenhum ponto marcado não há sonda nem
+ * teste extra no barramento ou na CPU. Pontos marcados de outra thread (interface, depurador)
+ * só trocam as sondas quando a emulação chama MemoryMap.applyPendingChanges (início de
+ * NES.runFrame e NES.step).
+ *
+ * Ao acertar um ponto, o acerto fica pendente até resume(): a NES para o frame logo
+ * depois da instrução que fez o acesso, ou antes da instrução do breakpoint.
+ */
+public class Watchpoints {
+    public static final char READ = 'R';
+    public static final char WRITE = 'W';
+    public static final char EXECUTE = 'X';
+
+    private final long[] readBits = new long[0x10000 >>> 6];
+    private final long[] writeBits = new long[0x10000 >>> 6];
+    private final long[] executeBits = new long[0x10000 >>> 6];
+    // pontos de leitura+escrita por página, para decidir onde instalar sondas
+    private final int[] pageCounts = new int[0x100];
+    private int accessCount;
+    private int executeCount;
+
+    // Acerto pendente (hitType == 0: nenhum)
+    private char hitType;
+    private int hitAddress;
+    private int hitValue;
+    private int hitPc;
+    // Instrução em execução, informada pela CPU
+    private int currentPc;
+    // Breakpoint em que a CPU parou: ignorado uma vez ao continuar
+    private int resumeAddress = -1;
+
+    private Runnable changeListener;
+
+    public void addReadWatch(int address) {
+        setAccess(readBits, address, true);
+    }
+
+    public void removeReadWatch(int address) {
+        setAccess(readBits, address, false);
+    }
+
+    public void addWriteWatch(int address) {
+        setAccess(writeBits, address, true);
+    }
+
+    public void removeWriteWatch(int address) {
+        setAccess(writeBits, address, false);
+    }
+
+    public void addBreakpoint(int address) {
+        if (set(executeBits, address, true)) {
+            executeCount++;
+            notifyChange();
+        }
+    }
+
+    public void removeBreakpoint(int address) {
+        if (set(executeBits, address, false)) {
+            executeCount--;
+            notifyChange();
+        }
+    }
+
+    // Remove todos os pontos e o acerto pendente
+    public void clear() {
+        Arrays.fill(readBits, 0);
+        Arrays.fill(writeBits, 0);
+        Arrays.fill(executeBits, 0);
+        Arrays.fill(pageCounts, 0);
+        accessCount = 0;
+        executeCount = 0;
+        hitType = 0;
+        resumeAddress = -1;
+        notifyChange();
+    }
+
+    public boolean isReadWatched(int address) {
+        return test(readBits, address);
+    }
+
+    public boolean isWriteWatched(int address) {
+        return test(writeBits, address);
+    }
+
+    public boolean isBreakpoint(int address) {
+        return test(executeBits, address);
+    }
+
+    // Há algum ponto marcado?
+    public boolean isActive() {
+        return accessCount > 0 || executeCount > 0;
+    }
+
+    public boolean hasAccessWatches() {
+        return accessCount > 0;
+    }
+
+    // A página tem watchpoint de leitura ou escrita (precisa de sonda)?
+    public boolean watchesPage(int page) {
+        return pageCounts[page] > 0;
+    }
+
+    // Chamado pelas sondas do MemoryMap
+    void onRead(int address, int value) {
+        if (test(readBits, address)) {
+            hit(READ, address, value, currentPc);
+        }
+    }
+
+    void onWrite(int address, int value) {
+        if (test(writeBits, address)) {
+            hit(WRITE, address, value, currentPc);
+        }
+    }
+
+    /**
+     * Chamado pela CPU antes de cada instrução enquanto houver pontos marcados.
+     * Retorna true se a instrução em pc não deve ser executada (breakpoint).
+     */
+    public boolean breakBeforeExecute(int pc) {
+        currentPc = pc;
+        if (executeCount == 0) {
+            return false;
+        }
+        if (pc == resumeAddress) {
+            resumeAddress = -1;
+            return false;
+        }
+        resumeAddress = -1;
+        if (test(executeBits, pc)) {
+            hit(EXECUTE, pc, 0, pc);
+            return true;
+        }
+        return false;
+    }
+
+    private void hit(char type, int address, int value, int pc) {
+        // o primeiro acerto da instrução é o que fica registrado
+        if (hitType == 0) {
+            hitType = type;
+            hitAddress = address;
+            hitValue = value;
+            hitPc = pc;
+        }
+    }
+
+    public boolean hasHit() {
+        return hitType != 0;
+    }
+
+    // 'R', 'W', 'X', ou 0 sem acerto pendente
+    public char getHitType() {
+        return hitType;
+    }
+
+    public int getHitAddress() {
+        return hitAddress;
+    }
+
+    public int getHitValue() {
+        return hitValue;
+    }
+
+    // Endereço da instrução que causou o acerto
+    public int getHitPc() {
+        return hitPc;
+    }
+
+    // Descarta o acerto pendente; um breakpoint acertado não para de novo na mesma instrução
+    public void resume() {
+        if (hitType == EXECUTE) {
+            resumeAddress = hitAddress;
+        }
+        hitType = 0;
+    }
+
+    void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void setAccess(long[] bits, int address, boolean value) {
+        if (set(bits, address, value)) {
+            int delta = value ? 1 : -1;
+            pageCounts[(address >>> 8) & 0xFF] += delta;
+            accessCount += delta;
+            notifyChange();
+        }
+    }
+
+    // Retorna true se o bit mudou
+    private static boolean set(long[] bits, int address, boolean value) {
+        address &= 0xFFFF;
+        long mask = 1L << address;
+        long old = bits[address >>> 6];
+        bits[address >>> 6] = value ? old | mask : old & ~mask;
+        return (old & mask) != 0 != value;
+    }
+
+    private static boolean test(long[] bits, int address) {
+        return (bits[(address & 0xFFFF) >>> 6] & (1L << address)) != 0;
+    }
+
+    private void notifyChange() {
+        if (changeListener != null) {
+            changeListener.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (hitType == 0) {
+            return "sem acerto";
+        }
+        return String.format("%c 0x%04X = 0x%02X (instrução em 0x%04X)", hitType, hitAddress, hitValue, hitPc);
+    }
+}
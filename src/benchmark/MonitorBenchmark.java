@@ -0,0 +1,183 @@
+package benchmark;
+
+import Memory.MemoryMap;
+import Memory.MemoryMappedDevice;
+import cpu.Cpu;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Mede o custo do monitor de memória no barramento e na CPU.
+ *
+ * Compara o MemoryMap com o monitor desligado contra um barramento de referência sem
+ * nenhuma instrumentação (a mesma tabela de páginas, sem sondas). Com o monitor desligado
+ * as páginas apontam direto para os arrays, então os dois tempos devem ficar iguais
+ * dentro do ruído. O modo ligado aparece para comparação.
+ *
+ * Cada modo roda numa JVM própria, para que o perfil do JIT de um modo não contamine
+ * o outro (um mesmo readByte vendo páginas com e sem sonda).
+ *
+ * Uso: java benchmark.MonitorBenchmark [rodadas]
+ *      java benchmark.MonitorBenchmark bare|disabled|enabled [rodadas]
+ */
+public class MonitorBenchmark {
+    private static final int BUS_ACCESSES = 20_000_000;
+    private static final int CPU_STEPS = 5_000_000;
+    private static final String[] MODES = {"bare", "disabled", "enabled"};
+
+    // Laço que usa zero page, pilha e RAM via ponteiro:
+    // loop: LDA $10 / ADC #$01 / STA $10 / PHA / PLA / STA ($20),Y / INY / INC $0300 / JMP loop
+    private static final int[] PROGRAM = {
+        0xA5, 0x10, 0x69, 0x01, 0x85, 0x10, 0x48, 0x68,
+        0x91, 0x20, 0xC8, 0xEE, 0x00, 0x03, 0x4C, 0x00, 0x80
+    };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && !Character.isDigit(args[0].charAt(0))) {
+            int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+            run(args[0], rounds);
+            return;
+        }
+
+        // Sem modo: roda cada modo num processo separado
+        String rounds = args.length > 0 ? args[0] : "5";
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (String mode : MODES) {
+            Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    MonitorBenchmark.class.getName(), mode, rounds)
+                .inheritIO()
+                .start();
+            process.waitFor();
+        }
+    }
+
+    private static void run(String mode, int rounds) {
+        BusAccess bus;
+        Cpu cpu = null;
+        switch (mode) {
+            case "bare":
+                BareBus bare = new BareBus();
+                bus = new BusAccess() {
+                    public int read(int address) { return bare.readByte(address); }
+                    public void write(int address, int value) { bare.writeByte(address, value); }
+                };
+                break;
+            case "disabled":
+            case "enabled":
+                boolean enabled = mode.equals("enabled");
+                MemoryMap memory = new MemoryMap();
+                memory.getMonitor().setEnabled(enabled);
+                memory.applyPendingChanges();
+                bus = new BusAccess() {
+                    public int read(int address) { return memory.readByte(address); }
+                    public void write(int address, int value) { memory.writeByte(address, value); }
+                };
+                cpu = newCpu(enabled);
+                break;
+            default:
+                throw new IllegalArgumentException("Modo desconhecido: " + mode);
+        }
+
+        long sink = 0;
+        for (int round = 1; round <= rounds; round++) {
+            long t0 = System.nanoTime();
+            sink += busLoop(bus);
+            long t1 = System.nanoTime();
+            String line = String.format("%-8s rodada %d | barramento %.2f ns/acesso", mode, round,
+                (t1 - t0) / (double) BUS_ACCESSES);
+            if (cpu != null) {
+                long t2 = System.nanoTime();
+                sink += cpuLoop(cpu);
+                long t3 = System.nanoTime();
+                line += String.format(" | CPU %.2f ns/instrução", (t3 - t2) / (double) CPU_STEPS);
+            }
+            System.out.println(line);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static Cpu newCpu(boolean monitorEnabled) {
+        MemoryMap memory = new MemoryMap();
+        memory.getMonitor().setEnabled(monitorEnabled);
+        memory.applyPendingChanges();
+        byte[] program = new byte[PROGRAM.length];
+        for (int i = 0; i < program.length; i++) {
+            program[i] = (byte) PROGRAM[i];
+        }
+        memory.loadTestProgram(0x8000, program);
+        memory.writeByte(0x20, 0x00);
+        memory.writeByte(0x21, 0x04);
+        Cpu cpu = new Cpu(memory);
+        cpu.setPC(0x8000);
+        return cpu;
+    }
+
+    private static long cpuLoop(Cpu cpu) {
+        long cycles = 0;
+        for (int i = 0; i < CPU_STEPS; i++) {
+            cycles += cpu.step();
+        }
+        return cycles;
+    }
+
+    // Leituras e escritas espalhadas pela RAM interna ($0000-$07FF)
+    private static long busLoop(BusAccess bus) {
+        long sum = 0;
+        for (int i = 0; i < BUS_ACCESSES; i += 2) {
+            int address = (i * 7) & 0x07FF;
+            bus.write(address, i);
+            sum += bus.read(address);
+        }
+        return sum;
+    }
+
+    private interface BusAccess {
+        int read(int address);
+        void write(int address, int value);
+    }
+
+    // Referência: a mesma decodificação por tabela de páginas do MemoryMap, sem monitor
+    private static final class BareBus {
+        private final byte[][] readPages = new byte[0x100][];
+        private final byte[][] writePages = new byte[0x100][];
+        private final int[] pageOffsets = new int[0x100];
+        private final MemoryMappedDevice[] readDevices = new MemoryMappedDevice[0x100];
+        private final MemoryMappedDevice[] writeDevices = new MemoryMappedDevice[0x100];
+
+        BareBus() {
+            byte[] ram = new byte[0x0800];
+            byte[] rest = new byte[0x10000];
+            for (int page = 0; page < 0x100; page++) {
+                readPages[page] = page < 0x20 ? ram : rest;
+                writePages[page] = readPages[page];
+                pageOffsets[page] = page < 0x20 ? (page << 8) & 0x07FF : page << 8;
+            }
+        }
+
+        int readByte(int address) {
+            if ((address & ~0xFFFF) != 0) {
+                throw new IllegalArgumentException("Invalid memory read: 0x" + Integer.toHexString(address));
+            }
+            int page = address >>> 8;
+            byte[] data = readPages[page];
+            if (data == null) {
+                return readDevices[page].read(address);
+            }
+            return Byte.toUnsignedInt(data[pageOffsets[page] + (address & 0xFF)]);
+        }
+
+        void writeByte(int address, int value) {
+            if ((address & ~0xFFFF) != 0) {
+                throw new IllegalArgumentException("Invalid memory write: 0x" + Integer.toHexString(address));
+            }
+            int page = address >>> 8;
+            byte[] data = writePages[page];
+            if (data == null) {
+                writeDevices[page].write(address, value);
+                return;
+            }
+            data[pageOffsets[page] + (address & 0xFF)] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cpu;
+
+/**
+ * Modos de endereçamento da CPU 6502.
+ * Cada modo sabe quantos bytes a instrução ocupa (opcode + operandos).
+ */
+public enum AddressingMode {
+    IMPLIED(1),
+    ACCUMULATOR(1),
+    IMMEDIATE(2),
+    ZERO_PAGE(2),
+    ZERO_PAGE_X(2),
+    ZERO_PAGE_Y(2),
+    RELATIVE(2),
+    INDEXED_INDIRECT(2),  // (zp,X)
+    INDIRECT_INDEXED(2),  // (zp),Y
+    ABSOLUTE(3),
+    ABSOLUTE_X(3),
+    ABSOLUTE_Y(3),
+    INDIRECT(3);
+
+    private final int length;
+
+    AddressingMode(int length) {
+        this.length = length;
+    }
+
+    // Tamanho total da instrução em bytes
+    public int getLength() {
+        return length;
+    }
+}
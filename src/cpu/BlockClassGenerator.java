@@ -0,0 +1,247 @@
+package cpu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gera o bytecode de uma subclasse de {@link CompiledBlock} para um bloco básico.
+ *
+ * Cada instrução do bloco vira um campo final com o seu handler e uma chamada
+ * direta em run(): o JIT enxerga handlers constantes (campos finais de classes
+ * ocultas são confiáveis) e consegue fazer inline através das instruções.
+ * O código gerado é linear, então não precisa de StackMapTable.
+ */
+final class BlockClassGenerator {
+    private static final String SUPER_CLASS = "cpu/CompiledBlock";
+    private static final String CPU_CLASS = "cpu/Cpu";
+    private static final String EXECUTOR_CLASS = "cpu/InstructionSet$InstructionExecutor";
+    private static final String EXECUTOR_DESC = "L" + EXECUTOR_CLASS + ";";
+
+    // Opcodes JVM usados
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int ILOAD_1 = 0x1B;
+    private static final int ILOAD_2 = 0x1C;
+    private static final int ILOAD_3 = 0x1D;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int AALOAD = 0x32;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int RETURN = 0xB1;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    // Pool de constantes em construção
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private BlockClassGenerator() {
+    }
+
+    /**
+     * Gera a classe para as instruções cujos opcodes começam nos endereços dados.
+     * O construtor gerado tem a assinatura (int start, int end, int cycles, int count, InstructionExecutor[]).
+     */
+    static byte[] generate(String className, int[] instructionAddresses, int[] operands) {
+        try {
+            return new BlockClassGenerator().emit(className, instructionAddresses, operands);
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao gerar bytecode do bloco", e);
+        }
+    }
+
+    private byte[] emit(String className, int[] addresses, int[] operands) throws IOException {
+        int count = addresses.length;
+        int thisClass = classRef(className);
+        int superClass = classRef(SUPER_CLASS);
+
+        int[] fieldRefs = new int[count];
+        int[] fieldNames = new int[count];
+        int fieldDesc = utf8(EXECUTOR_DESC);
+        for (int i = 0; i < count; i++) {
+            fieldNames[i] = utf8("e" + i);
+            fieldRefs[i] = memberRef(9, thisClass, "e" + i, EXECUTOR_DESC);
+        }
+        int superInit = memberRef(10, superClass, "<init>", "(IIII)V");
+        int prepare = memberRef(10, classRef(CPU_CLASS), "prepareInstruction", "(II)V");
+        int execute = memberRef(11, classRef(EXECUTOR_CLASS), "execute", "(L" + CPU_CLASS + ";)V");
+        int[] pcConstants = new int[count];
+        int[] operandConstants = new int[count];
+        for (int i = 0; i < count; i++) {
+            pcConstants[i] = integer((addresses[i] + 1) & 0xFFFF);
+            operandConstants[i] = integer(operands[i]);
+        }
+        int initName = utf8("<init>");
+        int initDesc = utf8("(IIII[" + EXECUTOR_DESC + ")V");
+        int runName = utf8("run");
+        int runDesc = utf8("(L" + CPU_CLASS + ";)V");
+        int codeName = utf8("Code");
+
+        // Construtor: super(start, end, cycles, count); e_i = executors[i];
+        ByteArrayOutputStream initCode = new ByteArrayOutputStream();
+        DataOutputStream init = new DataOutputStream(initCode);
+        init.writeByte(ALOAD_0);
+        init.writeByte(ILOAD_1);
+        init.writeByte(ILOAD_2);
+        init.writeByte(ILOAD_3);
+        init.writeByte(ILOAD);
+        init.writeByte(4);
+        init.writeByte(INVOKESPECIAL);
+        init.writeShort(superInit);
+        for (int i = 0; i < count; i++) {
+            init.writeByte(ALOAD_0);
+            init.writeByte(ALOAD);
+            init.writeByte(5);
+            init.writeByte(SIPUSH);
+            init.writeShort(i);
+            init.writeByte(AALOAD);
+            init.writeByte(PUTFIELD);
+            init.writeShort(fieldRefs[i]);
+        }
+        init.writeByte(RETURN);
+
+        // run(cpu): para cada instrução, PC = endereço + 1 (opcode já "buscado"),
+        // operando já decodificado, e executa o handler
+        ByteArrayOutputStream runCode = new ByteArrayOutputStream();
+        DataOutputStream run = new DataOutputStream(runCode);
+        for (int i = 0; i < count; i++) {
+            run.writeByte(ALOAD_1);
+            run.writeByte(LDC_W);
+            run.writeShort(pcConstants[i]);
+            run.writeByte(LDC_W);
+            run.writeShort(operandConstants[i]);
+            run.writeByte(INVOKEVIRTUAL);
+            run.writeShort(prepare);
+            run.writeByte(ALOAD_0);
+            run.writeByte(GETFIELD);
+            run.writeShort(fieldRefs[i]);
+            run.writeByte(ALOAD_1);
+            run.writeByte(INVOKEINTERFACE);
+            run.writeShort(execute);
+            run.writeByte(2);
+            run.writeByte(0);
+        }
+        run.writeByte(RETURN);
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(52); // Java 8: código linear dispensa StackMapTable
+        out.writeShort(poolCount);
+        pool.flush();
+        poolBytes.writeTo(out);
+        out.writeShort(ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(0); // interfaces
+
+        out.writeShort(count);
+        for (int i = 0; i < count; i++) {
+            out.writeShort(ACC_PRIVATE | ACC_FINAL);
+            out.writeShort(fieldNames[i]);
+            out.writeShort(fieldDesc);
+            out.writeShort(0);
+        }
+
+        out.writeShort(2);
+        writeMethod(out, ACC_PUBLIC, initName, initDesc, codeName, 5, 6, initCode.toByteArray());
+        writeMethod(out, ACC_PUBLIC, runName, runDesc, codeName, 3, 2, runCode.toByteArray());
+        out.writeShort(0); // atributos da classe
+        out.flush();
+        return classBytes.toByteArray();
+    }
+
+    private void writeMethod(DataOutputStream out, int flags, int name, int desc, int codeName,
+                             int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(flags);
+        out.writeShort(name);
+        out.writeShort(desc);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // atributos do Code
+    }
+
+    private int utf8(String value) throws IOException {
+        String key = "U" + value;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        pool.writeByte(1);
+        pool.writeUTF(value);
+        return register(key);
+    }
+
+    private int integer(int value) throws IOException {
+        String key = "I" + value;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        pool.writeByte(3);
+        pool.writeInt(value);
+        return register(key);
+    }
+
+    private int classRef(String internalName) throws IOException {
+        String key = "C" + internalName;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int name = utf8(internalName);
+        pool.writeByte(7);
+        pool.writeShort(name);
+        return register(key);
+    }
+
+    // tag 9 = Fieldref, 10 = Methodref, 11 = InterfaceMethodref
+    private int memberRef(int tag, int owner, String name, String descriptor) throws IOException {
+        String key = tag + ":" + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        String natKey = "N" + nameIndex + ":" + descIndex;
+        Integer natIndex = poolIndex.get(natKey);
+        if (natIndex == null) {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descIndex);
+            natIndex = register(natKey);
+        }
+        pool.writeByte(tag);
+        pool.writeShort(owner);
+        pool.writeShort(natIndex);
+        return register(key);
+    }
+
+    private int register(String key) {
+        int index = poolCount++;
+        poolIndex.put(key, index);
+        return index;
+    }
+}
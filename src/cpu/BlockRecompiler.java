@@ -0,0 +1,274 @@
+package cpu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+/**
+ * Modo de execução opcional, ao lado do interpretador do InstructionSet.
+ *
+ * Conta quantas vezes cada endereço da PRG-ROM ($8000-$FFFF) inicia uma instrução
+ * e, quando um endereço fica "quente", traduz o bloco básico que começa nele para
+ * uma classe JVM oculta (ver {@link BlockClassGenerator}). Código em RAM ou SRAM
+ * é sempre interpretado.
+ *
+ * Um bloco termina em qualquer desvio (branch, JMP, JSR, RTS, RTI, BRK) e nunca inclui
+ * instruções que podem acessar o hardware (PPU, APU, controles, registradores do mapper):
+ * dentro do bloco a PPU ainda não avançou, então essas instruções ficam para o interpretador.
+ * Os ciclos do bloco são a soma exata dos ciclos das instruções; quem chama a CPU só deixa
+ * o bloco rodar se ele couber antes do próximo evento (ver Cpu.step(int)), e o resultado
+ * é o mesmo do interpretador.
+ */
+public class BlockRecompiler {
+    private static final int PRG_START = 0x8000;
+    private static final int PRG_SIZE = 0x8000;
+
+    // Execuções de um endereço antes de compilar o bloco que começa nele
+    private static final int HOT_THRESHOLD = 32;
+    private static final int MAX_BLOCK_INSTRUCTIONS = 32;
+    private static final int MAX_BLOCK_BYTES = MAX_BLOCK_INSTRUCTIONS * 3;
+
+    // Opcodes que encerram um bloco: desvios
+    private static final int[] BLOCK_END_OPCODES = {
+        // Branches
+        0x10, 0x30, 0x50, 0x70, 0x90, 0xB0, 0xD0, 0xF0,
+        // JMP, JSR, RTS, RTI, BRK
+        0x4C, 0x6C, 0x20, 0x60, 0x40, 0x00
+    };
+    private static final boolean[] BLOCK_END = new boolean[256];
+
+    // Opcodes que escrevem na memória com endereço absoluto ou indireto
+    private static final int[] WRITE_OPCODES = {
+        // STA, STX, STY, SAX
+        0x8D, 0x9D, 0x99, 0x81, 0x91, 0x8E, 0x8C, 0x8F, 0x83,
+        // INC, DEC, ASL, LSR, ROL, ROR
+        0xEE, 0xFE, 0xCE, 0xDE, 0x0E, 0x1E, 0x4E, 0x5E, 0x2E, 0x3E, 0x6E, 0x7E,
+        // SLO, RLA, SRE, RRA, DCP, ISC
+        0x0F, 0x1F, 0x1B, 0x03, 0x13, 0x2F, 0x3F, 0x3B, 0x23, 0x33,
+        0x4F, 0x5F, 0x5B, 0x43, 0x53, 0x6F, 0x7F, 0x7B, 0x63, 0x73,
+        0xCF, 0xDF, 0xDB, 0xC3, 0xD3, 0xEF, 0xFF, 0xFB, 0xE3, 0xF3,
+        // SHA, SHX, SHY, TAS
+        0x9F, 0x93, 0x9E, 0x9C, 0x9B
+    };
+    private static final boolean[] WRITES = new boolean[256];
+
+    // Leituras de $2000-$5FFF (PPU, APU, controles, expansão) têm efeito ou dependem do
+    // momento; escritas a partir de $2000 também alcançam o mapper
+    private static final int HARDWARE_START = 0x2000;
+    private static final int HARDWARE_READ_END = 0x5FFF;
+
+    static {
+        for (int opcode : BLOCK_END_OPCODES) {
+            BLOCK_END[opcode] = true;
+        }
+        for (int opcode : WRITE_OPCODES) {
+            WRITES[opcode] = true;
+        }
+    }
+
+    private final Cpu cpu;
+    private final InstructionSet.InstructionExecutor[] executors;
+    private final int[] cycleTable;
+
+    // Blocos compilados e contadores de execução, indexados por (endereço - $8000)
+    private final CompiledBlock[] blocks = new CompiledBlock[PRG_SIZE];
+    private final int[] hits = new int[PRG_SIZE];
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private boolean hiddenClassesAvailable = true;
+
+    // Estatísticas
+    private long blocksCompiled;
+    private long blocksInvalidated;
+    private long blocksExecuted;
+
+    BlockRecompiler(Cpu cpu, InstructionSet.InstructionExecutor[] executors, int[] cycleTable) {
+        this.cpu = cpu;
+        this.executors = executors;
+        this.cycleTable = cycleTable;
+    }
+
+    /**
+     * Retorna o bloco compilado que começa em pc, compilando-o se o endereço ficou quente.
+     * Retorna null quando a instrução deve ser interpretada, inclusive quando o bloco
+     * pode gastar mais que cycleLimit ciclos.
+     */
+    CompiledBlock blockAt(int pc, int cycleLimit) {
+        int index = pc - PRG_START;
+        CompiledBlock block = blocks[index];
+        if (block == null) {
+            if (++hits[index] < HOT_THRESHOLD) {
+                return null;
+            }
+            hits[index] = 0;
+            block = compile(pc);
+            blocks[index] = block;
+        }
+        if (block == null || block.maxCycles > cycleLimit) {
+            return null;
+        }
+        blocksExecuted++;
+        return block;
+    }
+
+    /**
+     * Descarta os blocos que tocam a faixa [start, end], que passou a ter outro conteúdo.
+     */
+    void invalidate(int start, int end) {
+        int from = Math.max(PRG_START, start - MAX_BLOCK_BYTES + 1);
+        int to = Math.min(end, 0xFFFF);
+        for (int address = from; address <= to; address++) {
+            int index = address - PRG_START;
+            CompiledBlock block = blocks[index];
+            if (block != null && block.end >= start) {
+                blocks[index] = null;
+                blocksInvalidated++;
+            }
+            if (address >= start) {
+                hits[index] = 0;
+            }
+        }
+    }
+
+    // Percorre o bloco básico a partir de pc e gera a classe correspondente
+    private CompiledBlock compile(int pc) {
+        int[] addresses = new int[MAX_BLOCK_INSTRUCTIONS];
+        int[] operands = new int[MAX_BLOCK_INSTRUCTIONS];
+        int count = 0;
+        int cycles = 0;
+        int address = pc;
+
+        while (count < MAX_BLOCK_INSTRUCTIONS) {
+            int opcode = cpu.readByte(address);
+            int length = InstructionSet.getLength(opcode);
+            if (executors[opcode] == null || address + length - 1 > 0xFFFF) {
+                break;
+            }
+            int operand = 0;
+            if (length == 2) {
+                operand = cpu.readByte(address + 1);
+            } else if (length == 3) {
+                operand = cpu.readWord(address + 1);
+            }
+            if (mayAccessHardware(opcode, operand)) {
+                break;
+            }
+            addresses[count] = address;
+            operands[count] = operand;
+            count++;
+            cycles += cycleTable[opcode];
+            address += length;
+            if (BLOCK_END[opcode]) {
+                break;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        int[] blockAddresses = Arrays.copyOf(addresses, count);
+        int[] blockOperands = Arrays.copyOf(operands, count);
+        InstructionSet.InstructionExecutor[] handlers = new InstructionSet.InstructionExecutor[count];
+        for (int i = 0; i < count; i++) {
+            handlers[i] = executors[cpu.readByte(blockAddresses[i])];
+        }
+
+        CompiledBlock block = defineBlock(pc, address - 1, cycles, blockAddresses, blockOperands, handlers);
+        block.lastInstruction = blockAddresses[count - 1];
+        block.lastOpcode = cpu.readByte(block.lastInstruction);
+        // cada instrução pode ganhar um ciclo ao cruzar página; o branch no fim, até dois
+        block.maxCycles = cycles + count + 1;
+        blocksCompiled++;
+        return block;
+    }
+
+    // A instrução pode ler ou escrever em endereços de hardware? Endereços indiretos
+    // só são conhecidos ao executar, então contam como hardware.
+    private static boolean mayAccessHardware(int opcode, int operand) {
+        int first;
+        int last;
+        switch (InstructionSet.getAddressingMode(opcode)) {
+            case ABSOLUTE:
+                if (opcode == 0x4C || opcode == 0x20) {
+                    // JMP/JSR só usam o operando como destino
+                    return false;
+                }
+                first = operand;
+                last = operand;
+                break;
+            case INDIRECT:
+                first = operand;
+                last = operand + 1;
+                break;
+            case ABSOLUTE_X:
+            case ABSOLUTE_Y:
+                first = operand;
+                last = operand + 0xFF;
+                break;
+            case INDEXED_INDIRECT:
+            case INDIRECT_INDEXED:
+                return true;
+            default:
+                // página zero e pilha são sempre RAM
+                return false;
+        }
+        int end = WRITES[opcode] ? 0xFFFF : HARDWARE_READ_END;
+        return first <= end && last >= HARDWARE_START;
+    }
+
+    private CompiledBlock defineBlock(int start, int end, int cycles, int[] addresses, int[] operands,
+                                      InstructionSet.InstructionExecutor[] handlers) {
+        if (hiddenClassesAvailable) {
+            try {
+                byte[] bytecode = BlockClassGenerator.generate("cpu/GeneratedBlock", addresses, operands);
+                Class<?> blockClass = lookup.defineHiddenClass(bytecode, true).lookupClass();
+                Constructor<?> constructor = blockClass.getDeclaredConstructor(
+                    int.class, int.class, int.class, int.class, InstructionSet.InstructionExecutor[].class);
+                return (CompiledBlock) constructor.newInstance(start, end, cycles, addresses.length, handlers);
+            } catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+                hiddenClassesAvailable = false;
+                System.err.println("Recompilador: classes ocultas indisponíveis, usando blocos interpretados ("
+                    + e.getMessage() + ")");
+            }
+        }
+        return new InterpretedBlock(start, end, cycles, addresses, operands, handlers);
+    }
+
+    public long getBlocksCompiled() {
+        return blocksCompiled;
+    }
+
+    public long getBlocksInvalidated() {
+        return blocksInvalidated;
+    }
+
+    public long getBlocksExecuted() {
+        return blocksExecuted;
+    }
+
+    /**
+     * Alternativa sem geração de bytecode: percorre os handlers do bloco em sequência.
+     */
+    private static final class InterpretedBlock extends CompiledBlock {
+        private final int[] addresses;
+        private final int[] operands;
+        private final InstructionSet.InstructionExecutor[] handlers;
+
+        InterpretedBlock(int start, int end, int cycles, int[] addresses, int[] operands,
+                         InstructionSet.InstructionExecutor[] handlers) {
+            super(start, end, cycles, addresses.length);
+            this.addresses = addresses;
+            this.operands = operands;
+            this.handlers = handlers;
+        }
+
+        @Override
+        void run(Cpu cpu) {
+            for (int i = 0; i < handlers.length; i++) {
+                cpu.prepareInstruction((addresses[i] + 1) & 0xFFFF, operands[i]);
+                handlers[i].execute(cpu);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package cpu;
+
+/**
+ * Bloco básico de código 6502 (sequência de instruções sem desvio no meio)
+ * pronto para ser executado de uma vez, sem buscar e decodificar cada opcode.
+ * As subclasses são geradas em tempo de execução pelo {@link BlockRecompiler}.
+ */
+abstract class CompiledBlock {
+    final int start;            // endereço da primeira instrução
+    final int end;              // último byte ocupado pelo bloco
+    final int cycles;           // soma dos ciclos base de todas as instruções
+    final int instructionCount; // quantas instruções o bloco executa
+    int lastInstruction;        // endereço da última instrução do bloco
+    int lastOpcode;             // opcode da última instrução do bloco
+    int maxCycles;              // ciclos no pior caso (páginas cruzadas, branch tomado)
+
+    protected CompiledBlock(int start, int end, int cycles, int instructionCount) {
+        this.start = start;
+        this.end = end;
+        this.cycles = cycles;
+        this.instructionCount = instructionCount;
+    }
+
+    // Executa todas as instruções do bloco; ao sair, PC aponta para o próximo código
+    abstract void run(Cpu cpu);
+}
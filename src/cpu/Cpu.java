@@ -1,6 +1,7 @@
 package cpu;
 
 import Memory.MemoryMap;
+import Memory.ExecutionProbe;
 
 /**
  * Implementação da CPU 6502 do nes.NES
@@ -14,28 +15,66 @@ public class Cpu {
     
     private int PC; // Program Counter
     
-    // Flags de status (P register)
-    private boolean C; // Carry
-    private boolean Z; // Zero
-    private boolean I; // Interrupt Disable
-    private boolean D; // Decimal Mode
-    private boolean B; // Break
-    private boolean V; // Overflow
-    private boolean N; // Negative
-    
+    // Bits do registrador de status (P)
+    public static final int FLAG_C = 0x01; // Carry
+    public static final int FLAG_Z = 0x02; // Zero
+    public static final int FLAG_I = 0x04; // Interrupt Disable
+    public static final int FLAG_D = 0x08; // Decimal Mode
+    public static final int FLAG_B = 0x10; // Break
+    public static final int FLAG_U = 0x20; // Não usado (sempre 1)
+    public static final int FLAG_V = 0x40; // Overflow
+    public static final int FLAG_N = 0x80; // Negative
+
+    // Registrador de status empacotado: C, I, D, B e V ficam nos seus bits;
+    // N e Z não são guardados aqui, são derivados de nzResult sob demanda.
+    private int P;
+
+    // Último resultado que define N/Z: Z = byte baixo zerado, N = bit 7 ou bit 8.
+    // O bit 8 permite representar N=1 com Z=1 (ex.: BIT, PLP).
+    private int nzResult;
+
     // Referência ao mapa de memória
     private MemoryMap memory;
     
     // Conjunto de instruções
     private InstructionSet instructionSet;
+
+    // Tabelas de despacho (opcode -> handler / ciclos), lidas diretamente em step()
+    private final InstructionSet.InstructionExecutor[] executors;
+    private final int[] cycleTable;
     
+
     // Ciclos totais executados
     private long totalCycles;
+
+    // Instruções executadas (usado para validar laços de espera)
+    private long instructionCount;
+
+    // Detector de laços de espera
+    private final IdleLoopDetector idleLoopDetector = new IdleLoopDetector(this);
+
+    // Recompilador de blocos (null = apenas interpretador)
+    private BlockRecompiler recompiler;
+
+    // Cache de instruções pré-decodificadas da PRG (null = desligado)
+    private DecodeCache decodeCache;
+
+    // Ciclos extras da instrução atual (desvio tomado, cruzamento de página),
+    // somados pelos handlers e consumidos em step()
+    private int extraCycles;
+
+    // Operando da instrução atual já decodificado (vindo do cache ou de um bloco)
+    private boolean operandDecoded;
+    private int decodedOperand;
     
     // Construtor da CPU
     public Cpu(MemoryMap memory) {
         this.memory = memory;
         this.instructionSet = new InstructionSet();
+        this.executors = instructionSet.getExecutors();
+        this.cycleTable = instructionSet.getCycleTable();
+        this.decodeCache = new DecodeCache(this, executors);
+        memory.addBankSwitchListener(this::codeChanged);
         reset();
     }
     
@@ -47,27 +86,77 @@ public class Cpu {
         SP = 0xFD;
         PC = readWord(0xFFFC); // Vetor de reset
         
-        C = false;
-        Z = false;
-        I = true;
-        D = false;
-        B = false;
-        V = false;
-        N = false;
+        P = FLAG_I;
+        nzResult = 1; // Z = 0, N = 0
         
         totalCycles = 0;
+        extraCycles = 0;
+        instructionCount = 0;
+        idleLoopDetector.reset();
     }
     
     // Busca pelo opcode e executa a instrução correspondente
     public int step() {
-        int opcode = memory.readByte(PC);
+        return step(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Como step(), mas um bloco compilado só roda se não puder passar de blockCycleLimit
+     * ciclos; quem chama garante que até lá nada fora da CPU muda (NMI, fim do frame).
+     * Com limite 0 executa sempre uma única instrução.
+     */
+    public int step(int blockCycleLimit) {
+        // Com o mapa de calor, o trace ou o depurador ligado cada instrução é registrada,
+        // então os blocos ficam de fora
+        ExecutionProbe executeProbe = memory.getExecuteProbe();
+        // Gravando trace, opcode e operandos são buscados pelo barramento para entrarem no log
+        boolean busFetch = false;
+        if (executeProbe != null) {
+            // breakpoint: para antes da instrução, sem executá-la
+            if (memory.getWatchpoints().breakBeforeExecute(PC)) {
+                return 0;
+            }
+            executeProbe.recordExecute(PC);
+            busFetch = memory.getTraceRecorder() != null;
+        } else if (recompiler != null && PC >= 0x8000) {
+            CompiledBlock block = recompiler.blockAt(PC, blockCycleLimit);
+            if (block != null) {
+                block.run(this);
+                operandDecoded = false;
+                int cycles = block.cycles + extraCycles;
+                extraCycles = 0;
+                totalCycles += cycles;
+                instructionCount += block.instructionCount;
+                checkBackwardJump(block.lastOpcode, block.lastInstruction);
+                return cycles;
+            }
+        }
+
+        int start = PC;
+        int opcode;
+        InstructionSet.InstructionExecutor executor;
+        int entry = (decodeCache != null && PC >= 0x8000 && !busFetch) ? decodeCache.entryAt(PC) : 0;
+        if (entry != 0) {
+            // Instrução da PRG já decodificada: não passa pelo barramento
+            opcode = DecodeCache.opcodeOf(entry);
+            executor = decodeCache.handlerAt(PC);
+            decodedOperand = DecodeCache.operandOf(entry);
+            operandDecoded = true;
+        } else {
+            opcode = memory.readByte(PC);
+            executor = executors[opcode];
+            operandDecoded = false;
+        }
         PC = (PC + 1) & 0xFFFF;
         
-        Instruction instruction = instructionSet.getInstruction(opcode);
-        if (instruction != null) {
-            instruction.execute(this);
-            int cycles = instruction.getCycles();
+        if (executor != null) {
+            executor.execute(this);
+            operandDecoded = false;
+            int cycles = cycleTable[opcode] + extraCycles;
+            extraCycles = 0;
             totalCycles += cycles;
+            instructionCount++;
+            checkBackwardJump(opcode, start);
             return cycles;
         } else {
             System.err.printf("Opcode desconhecido: 0x%02X no endereço 0x%04X\n", opcode, PC - 1);
@@ -75,14 +164,147 @@ public class Cpu {
         }
     }
     
+    // Avisa o detector de laços quando um desvio curto volta para trás
+    private void checkBackwardJump(int opcode, int instructionAddress) {
+        if (PC <= instructionAddress && instructionAddress - PC <= IdleLoopDetector.MAX_LOOP_BYTES
+                && IdleLoopDetector.closesLoop(opcode)) {
+            idleLoopDetector.arrived(PC, instructionAddress, totalCycles, instructionCount);
+        }
+    }
+
+    /**
+     * Ciclos de uma iteração do laço de espera em que a CPU acabou de entrar,
+     * ou 0 se a CPU não está no início de um laço de espera confirmado.
+     */
+    public int getIdleLoopCycles() {
+        return idleLoopDetector.getConfirmedCycles(instructionCount);
+    }
+
+    // O laço de espera atual lê PPUSTATUS (e portanto observa sprite 0 e VBlank)?
+    public boolean isIdleLoopReadingPpuStatus() {
+        return idleLoopDetector.readsPpuStatus();
+    }
+
+    /**
+     * Pula iterações inteiras do laço de espera atual. Como cada iteração deixa a CPU
+     * no mesmo estado, basta contar os ciclos; quem chama avança o resto do sistema.
+     */
+    public void skipIdleLoopIterations(int iterations) {
+        int loopCycles = idleLoopDetector.getConfirmedCycles(instructionCount);
+        if (loopCycles <= 0 || iterations <= 0) {
+            return;
+        }
+        totalCycles += (long) iterations * loopCycles;
+        instructionCount += (long) iterations * idleLoopDetector.getBodyInstructions();
+        idleLoopDetector.skipped(iterations);
+    }
+
+    // Liga ou desliga o modo de execução por blocos recompilados
+    public void setRecompilerEnabled(boolean enabled) {
+        if (enabled && recompiler == null) {
+            recompiler = new BlockRecompiler(this, executors, cycleTable);
+        } else if (!enabled) {
+            recompiler = null;
+        }
+    }
+
+    public boolean isRecompilerEnabled() {
+        return recompiler != null;
+    }
+
+    // Estatísticas do recompilador (null se desligado)
+    public BlockRecompiler getRecompiler() {
+        return recompiler;
+    }
+
+    // Liga ou desliga o cache de instruções pré-decodificadas
+    public void setDecodeCacheEnabled(boolean enabled) {
+        if (enabled && decodeCache == null) {
+            decodeCache = new DecodeCache(this, executors);
+        } else if (!enabled) {
+            decodeCache = null;
+        }
+    }
+
+    // Estatísticas do cache de decodificação (null se desligado)
+    public DecodeCache getDecodeCache() {
+        return decodeCache;
+    }
+
+    // Código em [start, end] mudou (troca de banco, nova ROM): descarta o que foi derivado dele
+    private void codeChanged(int start, int end) {
+        if (decodeCache != null) {
+            decodeCache.invalidate(start, end);
+        }
+        if (recompiler != null) {
+            recompiler.invalidate(start, end);
+        }
+    }
+
+    // Prepara a execução de uma instrução com operando já conhecido (usado pelos blocos compilados)
+    void prepareInstruction(int operandAddress, int operand) {
+        PC = operandAddress;
+        decodedOperand = operand;
+        operandDecoded = true;
+    }
+
+    // Soma ciclos extras à instrução em execução
+    void addCycles(int cycles) {
+        extraCycles += cycles;
+    }
+
+    // Endereço base + índice de uma leitura indexada: +1 ciclo se cruzar página
+    int indexedRead(int base, int index) {
+        int addr = (base + index) & 0xFFFF;
+        if (((base ^ addr) & 0xFF00) != 0) {
+            extraCycles++;
+        }
+        return addr;
+    }
+
+    // Desvio tomado (PC já aponta para a próxima instrução): +1 ciclo, +1 se mudar de página
+    void branch(int offset) {
+        int target = (PC + offset) & 0xFFFF;
+        extraCycles += ((PC ^ target) & 0xFF00) != 0 ? 2 : 1;
+        PC = target;
+    }
+
+    // Lê o operando de 1 byte da instrução atual (em PC)
+    public int fetchOperandByte() {
+        if (operandDecoded) {
+            return decodedOperand & 0xFF;
+        }
+        return readByte(PC);
+    }
+
+    // Lê o operando de 2 bytes da instrução atual (em PC)
+    public int fetchOperandWord() {
+        if (operandDecoded) {
+            return decodedOperand;
+        }
+        return readWord(PC);
+    }
+    
     // Lê um byte da memória
     public int readByte(int address) {
-        return memory.readByte(address & 0xFFFF);
+        address &= 0xFFFF;
+        // RAM interna (e espelhos) direto do array, sem passar pelo barramento
+        byte[] ram = memory.getDirectRam();
+        if (address < MemoryMap.RAM_MIRRORS_END && ram != null) {
+            return ram[address & MemoryMap.RAM_MASK] & 0xFF;
+        }
+        return memory.readByte(address);
     }
     
     // Escreve um byte na memória
     public void writeByte(int address, int value) {
-        memory.writeByte(address & 0xFFFF, value & 0xFF);
+        address &= 0xFFFF;
+        byte[] ram = memory.getDirectRam();
+        if (address < MemoryMap.RAM_MIRRORS_END && ram != null) {
+            ram[address & MemoryMap.RAM_MASK] = (byte) value;
+            return;
+        }
+        memory.writeByte(address, value & 0xFF);
     }
     
     // Lê uma word (2 bytes) da memória (little-endian)
@@ -94,13 +316,12 @@ public class Cpu {
     
     // Atualiza as flags Z e N com base em um valor
     public void updateZN(int value) {
-        Z = (value & 0xFF) == 0;
-        N = (value & 0x80) != 0;
+        nzResult = value & 0xFF;
     }
     
     // Push de um byte na stack
     public void pushByte(int value) {
-        memory.writeByte(0x0100 + SP, value & 0xFF);
+        writeByte(0x0100 + SP, value);
         SP = (SP - 1) & 0xFF;
     }
     
@@ -113,7 +334,7 @@ public class Cpu {
     // Pop de um byte da stack
     public int popByte() {
         SP = (SP + 1) & 0xFF;
-        return memory.readByte(0x0100 + SP);
+        return readByte(0x0100 + SP);
     }
     
     // Pop de uma word da stack
@@ -125,26 +346,30 @@ public class Cpu {
     
     // Retorna o registrador de status como um byte
     public int getStatusByte() {
-        int status = 0x20; // Bit 5 sempre 1
-        if (C) status |= 0x01;
-        if (Z) status |= 0x02;
-        if (I) status |= 0x04;
-        if (D) status |= 0x08;
-        if (B) status |= 0x10;
-        if (V) status |= 0x40;
-        if (N) status |= 0x80;
+        int status = P | FLAG_U; // Bit 5 sempre 1
+        if ((nzResult & 0xFF) == 0) status |= FLAG_Z;
+        if ((nzResult & 0x180) != 0) status |= FLAG_N;
         return status;
     }
     
     // Define o registrador de status a partir de um byte
     public void setStatusByte(int status) {
-        C = (status & 0x01) != 0;
-        Z = (status & 0x02) != 0;
-        I = (status & 0x04) != 0;
-        D = (status & 0x08) != 0;
-        B = (status & 0x10) != 0;
-        V = (status & 0x40) != 0;
-        N = (status & 0x80) != 0;
+        P = status & (FLAG_C | FLAG_I | FLAG_D | FLAG_B | FLAG_V);
+        setNZ((status & FLAG_Z) != 0, (status & FLAG_N) != 0);
+    }
+
+    // Codifica N e Z de forma independente em nzResult
+    private void setNZ(boolean z, boolean n) {
+        nzResult = (z ? 0 : 1) | (n ? 0x100 : 0);
+    }
+
+    // Liga ou desliga um bit de P
+    private void setFlag(int mask, boolean value) {
+        if (value) {
+            P |= mask;
+        } else {
+            P &= ~mask;
+        }
     }
     
     // Getters e Setters
@@ -163,26 +388,26 @@ public class Cpu {
     public int getSP() { return SP; }
     public void setSP(int sp) { SP = sp & 0xFF; }
     
-    public boolean getC() { return C; }
-    public void setC(boolean c) { C = c; }
+    public boolean getC() { return (P & FLAG_C) != 0; }
+    public void setC(boolean c) { setFlag(FLAG_C, c); }
     
-    public boolean getZ() { return Z; }
-    public void setZ(boolean z) { Z = z; }
+    public boolean getZ() { return (nzResult & 0xFF) == 0; }
+    public void setZ(boolean z) { setNZ(z, getN()); }
     
-    public boolean getI() { return I; }
-    public void setI(boolean i) { I = i; }
+    public boolean getI() { return (P & FLAG_I) != 0; }
+    public void setI(boolean i) { setFlag(FLAG_I, i); }
     
-    public boolean getD() { return D; }
-    public void setD(boolean d) { D = d; }
+    public boolean getD() { return (P & FLAG_D) != 0; }
+    public void setD(boolean d) { setFlag(FLAG_D, d); }
     
-    public boolean getB() { return B; }
-    public void setB(boolean b) { B = b; }
+    public boolean getB() { return (P & FLAG_B) != 0; }
+    public void setB(boolean b) { setFlag(FLAG_B, b); }
     
-    public boolean getV() { return V; }
-    public void setV(boolean v) { V = v; }
+    public boolean getV() { return (P & FLAG_V) != 0; }
+    public void setV(boolean v) { setFlag(FLAG_V, v); }
     
-    public boolean getN() { return N; }
-    public void setN(boolean n) { N = n; }
+    public boolean getN() { return (nzResult & 0x180) != 0; }
+    public void setN(boolean n) { setNZ(getZ(), n); }
     
     public long getTotalCycles() { return totalCycles; }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package cpu;
+
+/**
+ * Cache de instruções pré-decodificadas para a PRG ($8000-$FFFF), indexado pelo PC.
+ *
+ * Cada entrada guarda o opcode, o operando (1 ou 2 bytes) e o tamanho da instrução,
+ * empacotados em um int, além do handler já resolvido. Execuções repetidas do mesmo
+ * endereço não passam mais pelo barramento para buscar opcode e operandos.
+ * As entradas são descartadas quando o mapper troca o banco que cobre o endereço.
+ */
+public class DecodeCache {
+    private static final int PRG_START = 0x8000;
+    private static final int PRG_SIZE = 0x8000;
+
+    // Layout da entrada: bits 0-7 opcode, 8-23 operando, 24-25 tamanho, bit 30 válida
+    private static final int OPERAND_SHIFT = 8;
+    private static final int LENGTH_SHIFT = 24;
+    private static final int VALID = 1 << 30;
+
+    private final Cpu cpu;
+    private final InstructionSet.InstructionExecutor[] executors;
+
+    private final int[] entries = new int[PRG_SIZE];
+    private final InstructionSet.InstructionExecutor[] handlers = new InstructionSet.InstructionExecutor[PRG_SIZE];
+
+    // Estatísticas
+    private long hits;
+    private long misses;
+    private long invalidatedEntries;
+    private long invalidations;
+
+    DecodeCache(Cpu cpu, InstructionSet.InstructionExecutor[] executors) {
+        this.cpu = cpu;
+        this.executors = executors;
+    }
+
+    /**
+     * Retorna a entrada decodificada para pc (>= $8000), decodificando-a na primeira vez.
+     * Retorna 0 se a instrução não pode ser cacheada (operandos passam de $FFFF).
+     */
+    int entryAt(int pc) {
+        int index = pc - PRG_START;
+        int entry = entries[index];
+        if (entry != 0) {
+            hits++;
+            return entry;
+        }
+        misses++;
+
+        int opcode = cpu.readByte(pc);
+        int length = InstructionSet.getLength(opcode);
+        if (pc + length - 1 > 0xFFFF) {
+            return 0;
+        }
+        int operand = 0;
+        if (length == 2) {
+            operand = cpu.readByte(pc + 1);
+        } else if (length == 3) {
+            operand = cpu.readWord(pc + 1);
+        }
+        entry = VALID | (length << LENGTH_SHIFT) | (operand << OPERAND_SHIFT) | opcode;
+        entries[index] = entry;
+        handlers[index] = executors[opcode];
+        return entry;
+    }
+
+    // Handler resolvido para pc; válido logo após entryAt(pc) retornar uma entrada
+    InstructionSet.InstructionExecutor handlerAt(int pc) {
+        return handlers[pc - PRG_START];
+    }
+
+    static int opcodeOf(int entry) {
+        return entry & 0xFF;
+    }
+
+    static int operandOf(int entry) {
+        return (entry >>> OPERAND_SHIFT) & 0xFFFF;
+    }
+
+    static int lengthOf(int entry) {
+        return (entry >>> LENGTH_SHIFT) & 0x03;
+    }
+
+    /**
+     * Descarta as entradas cujas instruções tocam a faixa [start, end].
+     */
+    void invalidate(int start, int end) {
+        // Uma instrução de até 3 bytes começando 2 bytes antes ainda pode ler a faixa
+        int from = Math.max(PRG_START, start - 2);
+        int to = Math.min(end, 0xFFFF);
+        if (from > to) {
+            return;
+        }
+        invalidations++;
+        for (int address = from; address <= to; address++) {
+            int index = address - PRG_START;
+            int entry = entries[index];
+            if (entry != 0 && address + lengthOf(entry) - 1 >= start) {
+                entries[index] = 0;
+                handlers[index] = null;
+                invalidatedEntries++;
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Fração das buscas atendidas pelo cache (0.0 - 1.0)
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // Quantas trocas de banco (ou cargas de programa) atingiram a PRG
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    // Quantas entradas válidas foram descartadas por essas trocas
+    public long getInvalidatedEntries() {
+        return invalidatedEntries;
+    }
+
+    public String getStatistics() {
+        return String.format("Decode cache: %.2f%% hits (%d/%d) | %d invalidações, %d entradas descartadas",
+            getHitRate() * 100.0, hits, hits + misses, invalidations, invalidatedEntries);
+    }
+}
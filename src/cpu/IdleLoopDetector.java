@@ -0,0 +1,212 @@
+package cpu;
+
+/**
+ * Detecta laços de espera ("idle loops"): laços curtos fechados por um desvio para trás
+ * que só fazem leituras sem efeito colateral, como
+ *
+ *   espera: LDA $2002 / BPL espera     ou     espera: LDA flag / BEQ espera
+ *
+ * Um laço é confirmado quando duas chegadas consecutivas ao seu início encontram a CPU
+ * exatamente no mesmo estado. A partir daí cada iteração repete a anterior até que algo
+ * externo (VBlank, NMI, sprite 0) mude o que o laço lê, e o NES pode pular iterações
+ * inteiras sem executá-las.
+ */
+final class IdleLoopDetector {
+    // Tamanho máximo do corpo do laço, em bytes (início até o desvio que o fecha)
+    static final int MAX_LOOP_BYTES = 16;
+
+    // Opcodes que podem aparecer no corpo: leituras, comparações e operações entre registradores
+    private static final int[] BODY_OPCODES = {
+        0xA9, 0xA5, 0xB5, 0xAD, 0xBD, 0xB9, 0xA1, 0xB1, // LDA
+        0xA2, 0xA6, 0xB6, 0xAE, 0xBE,                   // LDX
+        0xA0, 0xA4, 0xB4, 0xAC, 0xBC,                   // LDY
+        0x24, 0x2C,                                     // BIT
+        0xC9, 0xC5, 0xD5, 0xCD, 0xDD, 0xD9, 0xC1, 0xD1, // CMP
+        0xE0, 0xE4, 0xEC, 0xC0, 0xC4, 0xCC,             // CPX, CPY
+        0x29, 0x25, 0x35, 0x2D, 0x3D, 0x39, 0x21, 0x31, // AND
+        0x09, 0x05, 0x15, 0x0D, 0x1D, 0x19, 0x01, 0x11, // ORA
+        0x49, 0x45, 0x55, 0x4D, 0x5D, 0x59, 0x41, 0x51, // EOR
+        0xAA, 0xA8, 0x8A, 0x98, 0xBA,                   // TAX, TAY, TXA, TYA, TSX
+        0x18, 0x38, 0xB8, 0xD8, 0xEA                    // CLC, SEC, CLV, CLD, NOP
+    };
+    // Opcodes que fecham o laço: branches e JMP absoluto
+    private static final int[] CLOSING_OPCODES = {0x10, 0x30, 0x50, 0x70, 0x90, 0xB0, 0xD0, 0xF0, 0x4C};
+
+    private static final boolean[] BODY = new boolean[256];
+    private static final boolean[] CLOSING = new boolean[256];
+
+    static {
+        for (int opcode : BODY_OPCODES) {
+            BODY[opcode] = true;
+        }
+        for (int opcode : CLOSING_OPCODES) {
+            CLOSING[opcode] = true;
+        }
+    }
+
+    private final Cpu cpu;
+
+    // Laço candidato: início e endereço da instrução que fecha o laço
+    private int head = -1;
+    private int tail = -1;
+
+    // Estado da CPU e contadores na última chegada ao início do laço
+    private int lastA, lastX, lastY, lastSP, lastStatus;
+    private long lastCycles;
+    private long lastInstructions;
+
+    // Resultado da análise estática do corpo (válido para head/tail/X/Y atuais)
+    private boolean analyzed;
+    private boolean sideEffectFree;
+    private boolean readsPpuStatus;
+    private int bodyInstructions;
+
+    // Ciclos de uma iteração do laço confirmado (0 = nenhum laço confirmado)
+    private int confirmedCycles;
+
+    IdleLoopDetector(Cpu cpu) {
+        this.cpu = cpu;
+    }
+
+    // Opcode pode fechar um laço (desvio para trás)?
+    static boolean closesLoop(int opcode) {
+        return CLOSING[opcode];
+    }
+
+    /**
+     * Chamado quando a instrução em closingAddress desviou para trás, para newPC.
+     */
+    void arrived(int newPC, int closingAddress, long cycles, long instructions) {
+        int a = cpu.getA();
+        int x = cpu.getX();
+        int y = cpu.getY();
+        int sp = cpu.getSP();
+        int status = cpu.getStatusByte();
+
+        boolean sameLoop = newPC == head && closingAddress == tail;
+        boolean sameState = sameLoop && a == lastA && x == lastX && y == lastY
+            && sp == lastSP && status == lastStatus;
+
+        confirmedCycles = 0;
+        if (sameState) {
+            if (!analyzed) {
+                analyze();
+            }
+            if (sideEffectFree && instructions - lastInstructions == bodyInstructions) {
+                confirmedCycles = (int) (cycles - lastCycles);
+            }
+        } else {
+            // Laço diferente, ou registradores mudaram: a análise precisa ser refeita
+            head = newPC;
+            tail = closingAddress;
+            analyzed = false;
+        }
+
+        lastA = a;
+        lastX = x;
+        lastY = y;
+        lastSP = sp;
+        lastStatus = status;
+        lastCycles = cycles;
+        lastInstructions = instructions;
+    }
+
+    // Ciclos de uma iteração se a CPU acabou de chegar ao início de um laço confirmado
+    // (nenhuma instrução, p.ex. de um NMI, pode ter rodado desde a chegada)
+    int getConfirmedCycles(long instructions) {
+        return cpu.getPC() == head && instructions == lastInstructions ? confirmedCycles : 0;
+    }
+
+    boolean readsPpuStatus() {
+        return readsPpuStatus;
+    }
+
+    // Instruções executadas por iteração, incluindo o desvio que fecha o laço
+    int getBodyInstructions() {
+        return bodyInstructions;
+    }
+
+    // As iterações puladas contam como executadas para a próxima comparação
+    void skipped(int iterations) {
+        lastCycles += (long) iterations * confirmedCycles;
+        lastInstructions += (long) iterations * bodyInstructions;
+    }
+
+    // Esquece o laço atual (ex.: reset da CPU)
+    void reset() {
+        head = -1;
+        tail = -1;
+        analyzed = false;
+        confirmedCycles = 0;
+    }
+
+    // Verifica se o corpo [head, tail] é linear e só lê endereços sem efeito colateral
+    private void analyze() {
+        analyzed = true;
+        sideEffectFree = false;
+        readsPpuStatus = false;
+        bodyInstructions = 0;
+
+        int address = head;
+        while (address < tail) {
+            int opcode = cpu.readByte(address);
+            if (!BODY[opcode]) {
+                return;
+            }
+            int effective = effectiveAddress(opcode, address);
+            if (effective >= 0) {
+                if (!isSideEffectFreeRead(effective)) {
+                    return;
+                }
+                if (effective >= 0x2000 && effective < 0x4000) {
+                    readsPpuStatus = true;
+                }
+            }
+            address += InstructionSet.getLength(opcode);
+            bodyInstructions++;
+        }
+        if (address != tail || !CLOSING[cpu.readByte(tail)]) {
+            return;
+        }
+        bodyInstructions++; // a instrução que fecha o laço
+        sideEffectFree = true;
+    }
+
+    // Endereço lido pela instrução, ou -1 se ela não acessa memória
+    private int effectiveAddress(int opcode, int address) {
+        int x = cpu.getX();
+        int y = cpu.getY();
+        switch (InstructionSet.getAddressingMode(opcode)) {
+            case ZERO_PAGE:
+                return cpu.readByte(address + 1);
+            case ZERO_PAGE_X:
+                return (cpu.readByte(address + 1) + x) & 0xFF;
+            case ZERO_PAGE_Y:
+                return (cpu.readByte(address + 1) + y) & 0xFF;
+            case ABSOLUTE:
+                return cpu.readWord(address + 1);
+            case ABSOLUTE_X:
+                return (cpu.readWord(address + 1) + x) & 0xFFFF;
+            case ABSOLUTE_Y:
+                return (cpu.readWord(address + 1) + y) & 0xFFFF;
+            case INDEXED_INDIRECT:
+                return cpu.readWord((cpu.readByte(address + 1) + x) & 0xFF);
+            case INDIRECT_INDEXED:
+                return (cpu.readWord(cpu.readByte(address + 1)) + y) & 0xFFFF;
+            default:
+                return -1;
+        }
+    }
+
+    // RAM, PPUSTATUS ($2002 e espelhos), SRAM e PRG podem ser lidos repetidamente
+    // sem mudar nada além do que a primeira leitura já mudou
+    private static boolean isSideEffectFreeRead(int address) {
+        if (address < 0x2000) {
+            return true;
+        }
+        if (address < 0x4000) {
+            return (address & 0x7) == 2;
+        }
+        return address >= 0x6000;
+    }
+}
@@ -0,0 +1,75 @@
+package display;
+
+import Memory.MonitorAcessoMemoria;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Mapa de calor do espaço de endereços: um pixel por endereço, uma linha por página de 256 bytes.
+// Vermelho = escritas, verde = leituras, azul = execuções (escala logarítmica).
+public class HeatmapPanel extends JPanel {
+    private static final int SIZE = 256;
+
+    private final int[] reads = new int[0x10000];
+    private final int[] writes = new int[0x10000];
+    private final int[] executes = new int[0x10000];
+    private final BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    private final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    private long frame = -1;
+
+    public HeatmapPanel() {
+        setPreferredSize(new Dimension(SIZE * 2, SIZE * 2));
+        setBackground(Color.BLACK);
+        setToolTipText("");
+    }
+
+    // Copia o último frame publicado pelo monitor e redesenha
+    public void refresh(MonitorAcessoMemoria monitor) {
+        long copied = monitor.copyHeatmap(reads, writes, executes);
+        if (copied < 0 || copied == frame) {
+            return;
+        }
+        frame = copied;
+        for (int address = 0; address < pixels.length; address++) {
+            pixels[address] = (intensity(writes[address]) << 16)
+                | (intensity(reads[address]) << 8)
+                | intensity(executes[address]);
+        }
+        repaint();
+    }
+
+    // 0 acessos = preto; depois cresce com log2 da contagem
+    private static int intensity(int count) {
+        if (count == 0) {
+            return 0;
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(count);
+        return Math.min(255, 48 + bits * 13);
+    }
+
+    private int scale() {
+        return Math.max(1, Math.min(getWidth(), getHeight()) / SIZE);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int scale = scale();
+        g.drawImage(image, 0, 0, SIZE * scale, SIZE * scale, null);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int scale = scale();
+        int x = e.getX() / scale;
+        int y = e.getY() / scale;
+        if (x >= SIZE || y >= SIZE) {
+            return null;
+        }
+        int address = (y << 8) | x;
+        return String.format("0x%04X  L:%d  E:%d  X:%d", address, reads[address], writes[address], executes[address]);
+    }
+}
@@ -21,9 +21,13 @@ public class MemoryViewer extends JPanel {
     private final JLabel statsLabel;
     private final JCheckBox enabledCheckbox;
     private final JComboBox<String> filterCombo;
+    private final JCheckBox heatmapCheckbox;
+    private final HeatmapPanel heatmapPanel;
+    private final JPanel centerPanel;
     
     private static final int MAX_DISPLAY_ROWS = 100;
     private long lastUpdateTime = 0;
+    private long lastWriteIndex = 0; // índice do monitor já exibido na tabela
 
     // Aumenta o intervalo de atualização para reduzir impacto na UI
     private static final long UPDATE_INTERVAL_MS = 250; // Atualiza a cada 250ms
@@ -32,7 +36,7 @@ public class MemoryViewer extends JPanel {
         this.monitor = monitor;
 
         // Tabela de acessos
-        String[] columnNames = {"Tipo", "Endereço", "Valor", "Segmento", "Tempo"};
+        String[] columnNames = {"Tipo", "Endereço", "Valor", "Segmento", "Ciclo"};
         tableModel = new DefaultTableModel(columnNames, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -56,6 +60,7 @@ public class MemoryViewer extends JPanel {
         JButton clearButton = new JButton("Limpar");
         clearButton.addActionListener(e -> {
             monitor.clear();
+            lastWriteIndex = monitor.getWriteIndex();
             tableModel.setRowCount(0);
             updateStats();
         });
@@ -73,6 +78,11 @@ public class MemoryViewer extends JPanel {
         });
         filterCombo.addActionListener(e -> applyFilter());
         controlPanel.add(filterCombo);
+
+        // Mapa de calor: contadores por endereço do último frame em vez do log de eventos
+        heatmapCheckbox = new JCheckBox("Mapa de calor", false);
+        heatmapCheckbox.addActionListener(e -> setHeatmapMode(heatmapCheckbox.isSelected()));
+        controlPanel.add(heatmapCheckbox);
         
         add(controlPanel, BorderLayout.NORTH);
 
@@ -109,7 +119,12 @@ public class MemoryViewer extends JPanel {
         
         JScrollPane scrollPane = new JScrollPane(accessTable);
         scrollPane.setPreferredSize(new Dimension(550, 400));
-        add(scrollPane, BorderLayout.CENTER);
+
+        heatmapPanel = new HeatmapPanel();
+        centerPanel = new JPanel(new CardLayout());
+        centerPanel.add(scrollPane, "eventos");
+        centerPanel.add(heatmapPanel, "mapa");
+        add(centerPanel, BorderLayout.CENTER);
         
         // Painel de estatísticas no rodapé
         statsLabel = new JLabel(monitor.getStatistics());
@@ -145,9 +160,19 @@ public class MemoryViewer extends JPanel {
         }
         
         // Limpa a tabela para aplicar o novo filtro
+        lastWriteIndex = monitor.getWriteIndex();
         tableModel.setRowCount(0);
     }
     
+    // Alterna entre a tabela de eventos e o mapa de calor
+    private void setHeatmapMode(boolean heatmap) {
+        monitor.setMode(heatmap ? MonitorAcessoMemoria.Mode.HEATMAP : MonitorAcessoMemoria.Mode.EVENTS);
+        filterCombo.setEnabled(!heatmap);
+        ((CardLayout) centerPanel.getLayout()).show(centerPanel, heatmap ? "mapa" : "eventos");
+        lastWriteIndex = monitor.getWriteIndex();
+        tableModel.setRowCount(0);
+    }
+
     /**
      * Atualiza a visualização com acessos recentes
      */
@@ -164,19 +189,23 @@ public class MemoryViewer extends JPanel {
         }
         
         lastUpdateTime = currentTime;
+
+        if (monitor.getMode() == MonitorAcessoMemoria.Mode.HEATMAP) {
+            heatmapPanel.refresh(monitor);
+            updateStats();
+            return;
+        }
         
-        // Obtém acessos recentes
-        List<MemoryAccess> recentAccesses = monitor.getRecentAccesses(MAX_DISPLAY_ROWS);
-        
-        // Atualiza tabela apenas se houver novos acessos
-        int currentRows = tableModel.getRowCount();
-        int newAccessesCount = recentAccesses.size() - currentRows;
-        
+        // Quantos acessos chegaram desde a última atualização (no máximo uma tela)
+        long writeIndex = monitor.getWriteIndex();
+        int newAccessesCount = (int) Math.min(writeIndex - lastWriteIndex, MAX_DISPLAY_ROWS);
+        lastWriteIndex = writeIndex;
+
         if (newAccessesCount > 0) {
-            // Adiciona apenas os novos acessos
-            int startIndex = Math.max(0, recentAccesses.size() - newAccessesCount);
-            
-            for (int i = startIndex; i < recentAccesses.size(); i++) {
+            // Copia apenas os novos acessos, sem bloquear a emulação
+            List<MemoryAccess> recentAccesses = monitor.getRecentAccesses(newAccessesCount);
+
+            for (int i = 0; i < recentAccesses.size(); i++) {
                 MemoryAccess access = recentAccesses.get(i);
                 
                 Object[] row = {
@@ -184,7 +213,7 @@ public class MemoryViewer extends JPanel {
                     String.format("0x%04X", access.getAddress()),
                     String.format("0x%02X", access.getValue()),
                     access.getSegmentName(),
-                    formatTimestamp(access.getTimestamp())
+                    String.valueOf(access.getCycle())
                 };
                 
                 tableModel.addRow(row);
@@ -209,12 +238,4 @@ public class MemoryViewer extends JPanel {
     private void updateStats() {
         statsLabel.setText(monitor.getStatistics());
     }
-    
-    // Formata timestamp
-    private String formatTimestamp(long nanoTime) {
-        // Converte para microssegundos relativos
-        long microSeconds = nanoTime / 1000;
-        long displayTime = microSeconds % 1000000; // Últimos 1000000 microsegundos
-        return String.format("%06d μs", displayTime);
-    }
 }
@@ -0,0 +1,155 @@
+package display;
+
+import ppu.FrameExchange;
+import ppu.PPU;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tela do emulador com renderização ativa: uma thread própria copia o frame pronto direto no
+ * DataBufferInt da imagem (sem conversão de cor) e desenha com um BufferStrategy, sem passar
+ * pela fila de repaint da EDT. Escala inteira configurável.
+ *
+ * A emulação só avisa que há frame novo (frameReady); quem espera é a thread de render.
+ */
+public class ScreenPresenter extends Canvas {
+    private static final int BUFFERS = 2;
+
+    private final BufferedImage image;
+    // Pixels da imagem: escrever aqui é escrever na imagem
+    private final int[] pixels;
+    private volatile FrameExchange frameExchange;
+    private volatile int scale;
+
+    private volatile boolean running;
+    private Thread renderThread;
+
+    public ScreenPresenter(int scale) {
+        image = new BufferedImage(PPU.SCREEN_WIDTH, PPU.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        setBackground(Color.BLACK);
+        // a pintura é toda feita pela thread de render
+        setIgnoreRepaint(true);
+        setScale(scale);
+    }
+
+    public void setScale(int scale) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Escala inválida: " + scale);
+        }
+        this.scale = scale;
+        Dimension size = new Dimension(PPU.SCREEN_WIDTH * scale, PPU.SCREEN_HEIGHT * scale);
+        setPreferredSize(size);
+        setMinimumSize(size);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    // Fonte dos frames (a PPU publica nela)
+    public void setFrameExchange(FrameExchange frameExchange) {
+        this.frameExchange = frameExchange;
+    }
+
+    public FrameExchange getFrameExchange() {
+        return frameExchange;
+    }
+
+    /**
+     * Apresenta uma cópia do frame, para quem não usa uma troca alimentada pela PPU.
+     * Não deve ser misturado com uma troca em que a PPU já publica.
+     */
+    public void present(int[] frame) {
+        FrameExchange exchange = frameExchange;
+        if (exchange == null) {
+            exchange = new FrameExchange();
+            frameExchange = exchange;
+        }
+        System.arraycopy(frame, 0, exchange.getBackBuffer(), 0, PPU.SCREEN_WIDTH * PPU.SCREEN_HEIGHT);
+        exchange.publish();
+        frameReady();
+    }
+
+    // Acorda a thread de render (não bloqueia; pode ser chamado de qualquer thread)
+    public void frameReady() {
+        Thread thread = renderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        // o BufferStrategy só pode ser criado com o componente já exibível
+        createBufferStrategy(BUFFERS);
+        running = true;
+        renderThread = new Thread(this::renderLoop, "screen-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        Thread thread = renderThread;
+        running = false;
+        renderThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.removeNotify();
+    }
+
+    private void renderLoop() {
+        while (running) {
+            FrameExchange exchange = frameExchange;
+            if (exchange == null || !exchange.hasNewFrame()) {
+                LockSupport.park(this);
+                continue;
+            }
+            System.arraycopy(exchange.acquire(), 0, pixels, 0, pixels.length);
+            render();
+        }
+    }
+
+    private void render() {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        int width = PPU.SCREEN_WIDTH * scale;
+        int height = PPU.SCREEN_HEIGHT * scale;
+        // centraliza na área do componente
+        int x = Math.max(0, (getWidth() - width) / 2);
+        int y = Math.max(0, (getHeight() - height) / 2);
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    g.drawImage(image, x, y, width, height, null);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        // no X11 o desenho só chega à tela depois do sync
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
@@ -1,7 +1,7 @@
 package display;
 
 import input.Controller;
-import ppu.PPU;
+import ppu.FrameExchange;
 import Memory.MonitorAcessoMemoria;
 
 import javax.swing.*;
@@ -10,14 +10,13 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.awt.image.BufferedImage;
 
 // Janela principal do emulador e controles de teclado
 public class TelaEmulador extends JFrame implements KeyListener {
-    private static final int SCALE = 2; // Escala de renderização
+    private static final int SCALE = 2; // Escala de renderização padrão
     
-    private BufferedImage screen;
-    private JLabel screenLabel;
+    // Desenha os frames numa thread própria (renderização ativa)
+    private ScreenPresenter presenter;
     private Controller controller;
     private MemoryViewer memoryViewer;
     private JPanel screenPanel;
@@ -25,11 +24,12 @@ public class TelaEmulador extends JFrame implements KeyListener {
 
     // Construtor da janela do emulador
     public TelaEmulador(Controller controller, MonitorAcessoMemoria monitor) {
+        this(controller, monitor, SCALE);
+    }
+
+    public TelaEmulador(Controller controller, MonitorAcessoMemoria monitor, int scale) {
         this.controller = controller;
         
-        // Cria a imagem de exibição
-        screen = new BufferedImage(PPU.SCREEN_WIDTH, PPU.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
-        
         // Configura a janela
         setTitle("Emulador - Analisador de ROM com Monitor de Memória");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -39,23 +39,12 @@ public class TelaEmulador extends JFrame implements KeyListener {
         setLayout(new BorderLayout());
         
         // Painel esquerdo: Tela do emulador
-        screenPanel = new JPanel(new BorderLayout()) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                // Desenha a imagem da PPU escalada para caber no painel
-                int targetWidth = PPU.SCREEN_WIDTH * SCALE;
-                int targetHeight = PPU.SCREEN_HEIGHT * SCALE;
-                g.drawImage(screen, 0, 0, targetWidth, targetHeight, null);
-            }
-        };
+        screenPanel = new JPanel(new BorderLayout());
         screenPanel.setBorder(BorderFactory.createTitledBorder("Tela do Emulador"));
-        screenPanel.setPreferredSize(new Dimension(PPU.SCREEN_WIDTH * SCALE, PPU.SCREEN_HEIGHT * SCALE));
-        screenPanel.setMinimumSize(new Dimension(PPU.SCREEN_WIDTH * SCALE, PPU.SCREEN_HEIGHT * SCALE));
 
-        // Mantém um JLabel simples apenas por compatibilidade, mas o desenho principal é feito no paintComponent
-        screenLabel = new JLabel();
-        screenPanel.add(screenLabel, BorderLayout.CENTER);
+        // O Canvas da tela ocupa o painel; o tamanho vem da escala
+        presenter = new ScreenPresenter(scale);
+        screenPanel.add(presenter, BorderLayout.CENTER);
         add(screenPanel, BorderLayout.CENTER);
 
         // Painel direito: Monitor de memória com controle de ativação
@@ -76,21 +65,21 @@ public class TelaEmulador extends JFrame implements KeyListener {
 
         pack();
 
-        // Em vez de adicionar o KeyListener na janela, adicionamos diretamente no painel da tela
+        // Em vez de adicionar o KeyListener na janela, adicionamos diretamente na tela
         // para garantir que os eventos de teclado sejam capturados quando o usuário clicar na área do jogo.
         // removeKeyListener(this); // garantia extra de não ter listener duplicado
-        screenPanel.addKeyListener(this);
-        screenPanel.setFocusable(true);
-        screenPanel.requestFocusInWindow();
+        presenter.addKeyListener(this);
+        presenter.setFocusable(true);
+        presenter.requestFocusInWindow();
 
-        // Mantém a possibilidade de a janela receber foco, mas o foco principal é o painel
+        // Mantém a possibilidade de a janela receber foco, mas o foco principal é a tela
         setFocusable(true);
 
-        // Garante que o painel de tela possa recuperar foco quando clicado
-        screenPanel.addMouseListener(new java.awt.event.MouseAdapter() {
+        // Garante que a tela possa recuperar foco quando clicada
+        presenter.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mouseClicked(java.awt.event.MouseEvent e) {
-                screenPanel.requestFocusInWindow();
+                presenter.requestFocusInWindow();
             }
         });
 
@@ -98,21 +87,33 @@ public class TelaEmulador extends JFrame implements KeyListener {
         setVisible(true);
     }
     
-    // Atualiza o framebuffer da tela
+    public void setFrameExchange(FrameExchange frameExchange) {
+        presenter.setFrameExchange(frameExchange);
+    }
+
+    // Muda a escala inteira da tela e reajusta a janela
+    public void setScale(int scale) {
+        presenter.setScale(scale);
+        pack();
+    }
+
+    // Atualiza o framebuffer da tela (cópia do frame; sem troca alimentada pela PPU)
     public void updateScreen(int[] framebuffer) {
-        screen.setRGB(0, 0, PPU.SCREEN_WIDTH, PPU.SCREEN_HEIGHT, framebuffer, 0, PPU.SCREEN_WIDTH);
-        
+        presenter.present(framebuffer);
+        updateMonitor();
+    }
+
+    // Avisa a tela que há frame novo na troca (pode ser chamado de qualquer thread)
+    public void updateScreen() {
+        presenter.frameReady();
+        updateMonitor();
+    }
+
+    private void updateMonitor() {
         // Só atualiza o monitor se ele estiver habilitado
         if (memoryViewer != null && memoryViewer.isEnabled()) {
             memoryViewer.update();
         }
-
-        // Repaint apenas o painel de tela para reduzir trabalho da UI
-        if (screenPanel != null) {
-            screenPanel.repaint();
-        } else {
-            repaint();
-        }
     }
     
     @Override
@@ -2,16 +2,21 @@ package nes;
 
 import Memory.MemoryMap;
 import Memory.MemoryMappedDevice;
+import Memory.TraceRecorder;
+import Memory.Watchpoints;
 import apu.APU;
 import cpu.Cpu;
 import input.Controller;
 import leitor.LeitorINES;
 import ppu.PPU;
+import nes.memory.BatteryRam;
 import nes.memory.Mapper;
 import nes.memory.MapperType;
 import nes.memory.NROM;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Emulador nes.NES completo
@@ -25,10 +30,18 @@ public class NES {
     private Controller controller1;
     private Controller controller2;
 
-    private boolean running;
+    // Lido pelo laço da emulação e escrito por requestStop de outras threads
+    private volatile boolean running;
     private long cpuCycles;
     private int dmaCyclesPending;
+    // Ciclos já executados do frame atual quando runFrame parou num watchpoint
+    private int frameCyclesRun;
+    private final byte[] oamDmaBuffer = new byte[256];
     private Mapper mapper;
+    private BatteryRam batteryRam;
+
+    // Pula iterações de laços de espera até o próximo evento da PPU
+    private boolean idleLoopSkipEnabled = true;
 
     /**
      * Construtor do emulador nes.NES
@@ -42,6 +55,7 @@ public class NES {
         controller2 = new Controller();
 
         setupMemoryHandlers();
+        memoria.getMonitor().setCycleSource(() -> cpuCycles);
     }
 
     /**
@@ -109,27 +123,76 @@ public class NES {
     }
 
     private void queueOamDma(int page) {
-        int baseAddr = (page & 0xFF) << 8;
-        for (int i = 0; i < 256; i++) {
-            int data = memoria.readByte(baseAddr + i);
-            ppu.writeOAMByte(i, data);
+        // Página servida por array vai em bloco; dispositivos e páginas monitoradas, byte a byte
+        if (!memoria.copyPage(page, oamDmaBuffer, 0)) {
+            int baseAddr = (page & 0xFF) << 8;
+            for (int i = 0; i < 256; i++) {
+                oamDmaBuffer[i] = (byte) memoria.readByte(baseAddr + i);
+            }
         }
+        ppu.writeOAMBlock(oamDmaBuffer, 0);
         int penalty = 513 + ((cpuCycles & 0x01) == 0 ? 1 : 0);
         dmaCyclesPending += penalty;
     }
 
     private void stepSystemCycles(int cpuCyclesToRun) {
-        for (int c = 0; c < cpuCyclesToRun; c++) {
-            for (int p = 0; p < 3; p++) {
-                ppu.step();
-                if (ppu.shouldTriggerNMI()) {
-                    handleNMI();
-                }
+        // A PPU avança em bloco (pulando ciclos ociosos) e para em cada NMI
+        int dots = cpuCyclesToRun * 3;
+        while (dots > 0) {
+            dots -= ppu.advance(dots);
+            if (ppu.shouldTriggerNMI()) {
+                handleNMI();
             }
+        }
+        for (int c = 0; c < cpuCyclesToRun; c++) {
             apu.step();
         }
     }
 
+    /**
+     * Se a CPU está no início de um laço de espera confirmado, pula iterações inteiras
+     * até pouco antes do próximo evento da PPU (sem passar do fim do frame).
+     * O resultado é idêntico a executar as iterações: o laço só lê valores que não mudam
+     * até o evento. Retorna quantos ciclos de CPU foram pulados.
+     */
+    private int skipIdleLoop(int frameCyclesLeft) {
+        int loopCycles = cpu.getIdleLoopCycles();
+        if (loopCycles <= 0) {
+            return 0;
+        }
+        int eventCycles = ppu.dotsUntilNextEvent(cpu.isIdleLoopReadingPpuStatus()) / 3;
+        // Deixa a última iteração antes do evento para ser executada normalmente
+        int limit = Math.min(eventCycles - loopCycles, frameCyclesLeft - 1);
+        int iterations = limit / loopCycles;
+        if (iterations <= 0) {
+            return 0;
+        }
+        int skipped = iterations * loopCycles;
+        cpu.skipIdleLoopIterations(iterations);
+        cpuCycles += skipped;
+
+        ppu.advance(skipped * 3);
+        if (ppu.shouldTriggerNMI()) {
+            handleNMI();
+        }
+        for (int c = 0; c < skipped; c++) {
+            apu.step();
+        }
+        return skipped;
+    }
+
+    /**
+     * Quantos ciclos um bloco do recompilador pode gastar de uma vez: ele precisa terminar
+     * antes do fim do frame e antes do próximo evento da PPU (VBlank/NMI), senão o NMI
+     * e a troca de frame aconteceriam depois do ponto em que o interpretador os veria.
+     */
+    private int blockCycleLimit(int frameCyclesLeft) {
+        if (!cpu.isRecompilerEnabled()) {
+            return 0;
+        }
+        return Math.min(frameCyclesLeft - 1, (ppu.dotsUntilNextEvent(false) - 1) / 3);
+    }
+
     private void applyDmaPenaltyCycles() {
         if (dmaCyclesPending <= 0) {
             return;
@@ -162,10 +225,34 @@ public class NES {
 
         mapper.connect(ppu);
         ppu.setMapper(mapper);
+        // PRG-RAM de 8KB em $6000-$7FFF; com bateria ela é gravada no .sav da ROM
+        closeBatteryRam();
+        if (leitor.getHeader().isTemBattery()) {
+            batteryRam = new BatteryRam(saveFileFor(filePath), 0x2000);
+            memoria.setSramDevice(batteryRam);
+            System.out.println("SRAM com bateria: " + batteryRam.getFile());
+        } else {
+            memoria.setSram(new byte[0x2000]);
+        }
         memoria.setMapper(mapper);
         System.out.println("ROM carregada: " + filePath + " (mapper " + mapperType + ")");
     }
 
+    // jogo.nes -> jogo.sav, no mesmo diretório
+    private static Path saveFileFor(String romPath) {
+        Path rom = Paths.get(romPath);
+        String name = rom.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return rom.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".sav");
+    }
+
+    private void closeBatteryRam() {
+        if (batteryRam != null) {
+            batteryRam.close();
+            batteryRam = null;
+        }
+    }
+
     /**
      * Reseta o emulador
      */
@@ -176,15 +263,23 @@ public class NES {
         controller1.reset();
         controller2.reset();
         cpuCycles = 0;
+        frameCyclesRun = 0;
+        memoria.getWatchpoints().resume();
         System.out.println("Emulador resetado");
     }
 
     /**
-     * Executa um frame completo (~29780.5 ciclos de CPU)
+     * Executa um frame completo (~29780.5 ciclos de CPU). Se um watchpoint ou breakpoint
+     * for acertado, para no meio do frame (ver isPaused); a próxima chamada continua o
+     * mesmo frame de onde parou.
      */
     public void runFrame() {
         int cyclesPerFrame = 29781; // NTSC: ~1.789773 MHz / 60 Hz
-        int cyclesRun = 0;
+        int cyclesRun = frameCyclesRun;
+        Watchpoints watchpoints = memoria.getWatchpoints();
+        watchpoints.resume();
+        // Ligar/desligar o monitor pela interface só vale aqui, entre instruções
+        memoria.applyPendingChanges();
 
         // Garante que o emulador esteja rodando durante a execução de um frame
         if (!running) {
@@ -193,26 +288,82 @@ public class NES {
 
         while (cyclesRun < cyclesPerFrame && running) {
             // Executa um ciclo de CPU
-            int cpuCyclesThisStep = cpu.step();
+            int cpuCyclesThisStep = cpu.step(blockCycleLimit(cyclesPerFrame - cyclesRun));
             cpuCycles += cpuCyclesThisStep;
             cyclesRun += cpuCyclesThisStep;
 
             stepSystemCycles(cpuCyclesThisStep);
             applyDmaPenaltyCycles();
+
+            if (watchpoints.hasHit()) {
+                frameCyclesRun = cyclesRun;
+                return;
+            }
+
+            // Com o monitor ligado as iterações precisam rodar para serem registradas
+            if (idleLoopSkipEnabled && !memoria.isInstrumented()) {
+                cyclesRun += skipIdleLoop(cyclesPerFrame - cyclesRun);
+            }
         }
+        frameCyclesRun = 0;
+
+        // Publica os contadores do frame (mapa de calor do monitor)
+        memoria.getMonitor().endFrame();
+    }
+
+    // Parado num watchpoint/breakpoint no meio de um frame? (detalhes em getWatchpoints())
+    public boolean isPaused() {
+        return memoria.getWatchpoints().hasHit();
+    }
+
+    public Watchpoints getWatchpoints() {
+        return memoria.getWatchpoints();
     }
 
     /**
      * Executa uma única instrução da CPU
      */
     public void step() {
-        int cpuCyclesThisStep = cpu.step();
+        memoria.getWatchpoints().resume();
+        memoria.applyPendingChanges();
+        int cpuCyclesThisStep = cpu.step(0);
         cpuCycles += cpuCyclesThisStep;
 
         stepSystemCycles(cpuCyclesThisStep);
         applyDmaPenaltyCycles();
     }
 
+    /**
+     * Liga ou desliga o avanço rápido de laços de espera
+     */
+    public void setIdleLoopSkipEnabled(boolean enabled) {
+        idleLoopSkipEnabled = enabled;
+    }
+
+    public boolean isIdleLoopSkipEnabled() {
+        return idleLoopSkipEnabled;
+    }
+
+    /**
+     * Começa a gravar todos os acessos do barramento em dir/nome-NNNNN.trace
+     * (ver Memory.TraceReader para consultar). Substitui uma gravação em andamento.
+     */
+    public void startTrace(Path dir, String name) throws IOException {
+        stopTrace();
+        memoria.setTraceRecorder(new TraceRecorder(dir, name, () -> cpuCycles));
+    }
+
+    /**
+     * Para a gravação do trace, se houver, e descarrega o último segmento
+     */
+    public void stopTrace() {
+        TraceRecorder recorder = memoria.getTraceRecorder();
+        if (recorder != null) {
+            memoria.setTraceRecorder(null);
+            recorder.close();
+        }
+    }
+
     /**
      * Trata interrupção NMI (VBlank)
      */
@@ -236,11 +387,23 @@ public class NES {
     }
 
     /**
-     * Para a execução do emulador
+     * Pede para o laço da emulação parar; pode ser chamado de qualquer thread.
+     * A thread da emulação termina com stop() depois de sair do laço.
+     */
+    public void requestStop() {
+        running = false;
+    }
+
+    /**
+     * Para a execução do emulador (na thread da emulação)
      */
     public void stop() {
         running = false;
         apu.stopAudio();
+        stopTrace();
+        if (batteryRam != null) {
+            batteryRam.flush();
+        }
         System.out.println("Emulador parado");
     }
 
@@ -265,6 +428,14 @@ public class NES {
         return ppu;
     }
 
+    /**
+     * Pula a composição de skip de cada period frames (ver PPU.setFrameSkip); a lógica do
+     * jogo não muda, só deixam de ser desenhados os pixels.
+     */
+    public void setFrameSkip(int skip, int period) {
+        ppu.setFrameSkip(skip, period);
+    }
+
     /**
      * Obtém a APU
      */
@@ -293,6 +464,13 @@ public class NES {
         return ppu.getFramebuffer();
     }
 
+    /**
+     * Frame indexado da PPU (entradas da NesPalette), sem conversão para RGB
+     */
+    public short[] getIndexedFramebuffer() {
+        return ppu.getIndexedFramebuffer();
+    }
+
     /**
      * Obtém o mapa de memória
      */
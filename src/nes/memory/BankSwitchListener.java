@@ -0,0 +1,12 @@
+package nes.memory;
+
+/**
+ * Notificado quando o conteúdo visível de uma faixa de endereços da CPU muda
+ * (troca de banco do mapper, carga de um novo cartucho ou programa).
+ * Usado por quem guarda informação derivada do código, como caches de instruções.
+ */
+@FunctionalInterface
+public interface BankSwitchListener {
+    // Faixa inclusiva de endereços da CPU que passou a apontar para outro conteúdo
+    void prgBankSwitched(int startAddress, int endAddress);
+}
@@ -0,0 +1,89 @@
+package nes.memory;
+
+import Memory.MemoryMappedDevice;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRAM com bateria ($6000-$7FFF) gravada direto num arquivo .sav mapeado em memória.
+ *
+ * As escritas da CPU vão para as páginas do arquivo no cache do sistema operacional, então
+ * o save sobrevive a um crash da JVM sem nenhuma escrita síncrona no caminho da CPU. Para
+ * sobreviver também a uma queda do sistema, uma thread de fundo chama force() em lote,
+ * só quando houve escritas desde o último flush.
+ */
+public class BatteryRam implements MemoryMappedDevice, Closeable {
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    // Uma única thread de flush para todas as instâncias (várias NES na mesma JVM)
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sram-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int mask;
+    private final ScheduledFuture<?> flushTask;
+    private volatile boolean dirty;
+
+    public BatteryRam(Path file, int size) throws IOException {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Tamanho de SRAM inválido: " + size);
+        }
+        this.file = file;
+        this.mask = size - 1;
+        // Arquivo existente é reaproveitado; menor que size é estendido com zeros
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        flushTask = FLUSHER.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int read(int address) {
+        return buffer.get(address & mask) & 0xFF;
+    }
+
+    @Override
+    public void write(int address, int value) {
+        buffer.put(address & mask, (byte) value);
+        if (!dirty) {
+            dirty = true;
+        }
+    }
+
+    // Descarrega para o disco as escritas pendentes
+    public void flush() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getSize() {
+        return mask + 1;
+    }
+
+    @Override
+    public void close() {
+        flushTask.cancel(false);
+        flush();
+    }
+}
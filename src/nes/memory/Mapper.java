@@ -1,5 +1,6 @@
 package nes.memory;
 
+import Memory.MemoryMap;
 import ppu.PPU;
 
 /**
@@ -12,9 +13,18 @@ public interface Mapper {
     int cpuRead(int address);
     void cpuWrite(int address, int value);
 
+    // Mapeia direto na tabela de páginas da CPU os bancos que podem ser lidos de arrays;
+    // as demais páginas do cartucho continuam passando por cpuRead/cpuWrite
+    void mapCpuPages(MemoryMap memory);
+
+    // Mappers que trocam bancos de CHR devem chamar PPU.invalidatePatternTables() depois da
+    // troca: a PPU desenha a partir de uma cópia decodificada das pattern tables
     int ppuRead(int address);
     void ppuWrite(int address, int value);
 
     void connect(PPU ppu);
     PPU.MirrorMode getMirrorMode();
+
+    // Registra quem deve ser avisado quando o mapper trocar bancos de PRG
+    void addBankSwitchListener(BankSwitchListener listener);
 }
@@ -1,13 +1,18 @@
 package nes.memory;
 
+import Memory.MemoryMap;
 import ppu.PPU;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class NROM implements Mapper {
     private final byte[] prg;
     private final byte[] chr;
     private final boolean hasChrRam;
     private final PPU.MirrorMode mirrorMode;
     private PPU ppu;
+    private final List<BankSwitchListener> bankSwitchListeners = new ArrayList<>();
 
     public NROM(byte[] prg, byte[] chr, PPU.MirrorMode mirrorMode) {
         this.prg = prg;
@@ -37,6 +42,17 @@ public class NROM implements Mapper {
         // NROM não responde a escritas em PRG-ROM
     }
 
+    @Override
+    public void mapCpuPages(MemoryMap memory) {
+        // 32KB em $8000-$FFFF, ou 16KB espelhados nas duas metades
+        if (prg.length == 0x4000) {
+            memory.mapPages(0x80, 0x40, prg, 0, false);
+            memory.mapPages(0xC0, 0x40, prg, 0, false);
+        } else {
+            memory.mapPages(0x80, 0x80, prg, 0, false);
+        }
+    }
+
     @Override
     public int ppuRead(int address) {
         if (address < 0x2000) {
@@ -63,4 +79,10 @@ public class NROM implements Mapper {
     public PPU.MirrorMode getMirrorMode() {
         return mirrorMode;
     }
+
+    @Override
+    public void addBankSwitchListener(BankSwitchListener listener) {
+        // NROM tem PRG fixa e nunca troca bancos; mantém a lista por contrato
+        bankSwitchListeners.add(listener);
+    }
 }
@@ -0,0 +1,53 @@
+package ppu;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Troca de frames sem lock entre a PPU (produtor) e a tela (consumidor), com três buffers ARGB:
+ * o de trás (a PPU desenha nele), o pronto (último frame completo) e o de exibição (a tela lê).
+ *
+ * Publicar e pegar um frame só trocam índices com uma operação atômica: a emulação nunca
+ * espera pela pintura e a tela sempre vê um frame inteiro. Frames publicados enquanto a tela
+ * não pega nenhum são descartados, ficando só o mais recente.
+ *
+ * Um único produtor e um único consumidor (por exemplo, a thread da emulação e a EDT).
+ */
+public class FrameExchange {
+    private static final int INDEX_MASK = 0x03;
+    // Marca no índice pronto: frame publicado que o consumidor ainda não pegou
+    private static final int FRESH = 0x04;
+
+    private final int[][] buffers = new int[3][PPU.SCREEN_WIDTH * PPU.SCREEN_HEIGHT];
+    // Índice do buffer pronto | FRESH
+    private final AtomicInteger ready = new AtomicInteger(1);
+    // Só o produtor mexe em back; só o consumidor mexe em display
+    private int back = 0;
+    private int display = 2;
+
+    // Buffer em que o produtor desenha o próximo frame
+    public int[] getBackBuffer() {
+        return buffers[back];
+    }
+
+    /**
+     * Publica o buffer de trás como frame pronto e devolve o novo buffer de trás.
+     */
+    public int[] publish() {
+        back = ready.getAndSet(back | FRESH) & INDEX_MASK;
+        return buffers[back];
+    }
+
+    public boolean hasNewFrame() {
+        return (ready.get() & FRESH) != 0;
+    }
+
+    /**
+     * Frame mais recente para exibir. Continua válido (e sem mudanças) até a próxima chamada.
+     */
+    public int[] acquire() {
+        if ((ready.get() & FRESH) != 0) {
+            display = ready.getAndSet(display) & INDEX_MASK;
+        }
+        return buffers[display];
+    }
+}
@@ -0,0 +1,124 @@
+package ppu;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tabela de cores ARGB da NES: 8 combinações dos bits de ênfase do PPUMASK (bits 5-7)
+ * x 64 cores = 512 entradas, calculadas uma vez. A PPU só indexa a tabela ao desenhar.
+ *
+ * A tabela é compartilhada e pode ser trocada a qualquer momento (arquivo .pal); a troca
+ * vale a partir do próximo pixel desenhado.
+ */
+public final class NesPalette {
+    public static final int COLORS = 64;
+    public static final int SIZE = COLORS * 8;
+
+    // Fator aplicado aos canais escurecidos pela ênfase
+    private static final double EMPHASIS_ATTENUATION = 0.816;
+
+    private static final int[] DEFAULT_COLORS = {
+        0xFF545454, 0xFF001E74, 0xFF081090, 0xFF300088, 0xFF440064, 0xFF5C0030, 0xFF540400, 0xFF3C1800,
+        0xFF202A00, 0xFF083A00, 0xFF004000, 0xFF003C00, 0xFF00323C, 0xFF000000, 0xFF000000, 0xFF000000,
+        0xFF989698, 0xFF084CC4, 0xFF3032EC, 0xFF5C1EE4, 0xFF8814B0, 0xFFA01464, 0xFF982220, 0xFF783C00,
+        0xFF545A00, 0xFF287200, 0xFF087C00, 0xFF007628, 0xFF006678, 0xFF000000, 0xFF000000, 0xFF000000,
+        0xFFECEEEC, 0xFF4C9AEC, 0xFF787CEC, 0xFFB062EC, 0xFFE454EC, 0xFFEC58B4, 0xFFEC6A64, 0xFFD48820,
+        0xFFA0AA00, 0xFF74C400, 0xFF4CD020, 0xFF38CC6C, 0xFF38B4CC, 0xFF3C3C3C, 0xFF000000, 0xFF000000,
+        0xFFECEEEC, 0xFFA8CCEC, 0xFFBCBCEC, 0xFFD4B2EC, 0xFFECAEEC, 0xFFECAED4, 0xFFECB4B0, 0xFFE4C490,
+        0xFFCCD278, 0xFFB4DE78, 0xFFA8E290, 0xFF98E2B4, 0xFFA0D6E4, 0xFFA0A2A0, 0xFF000000, 0xFF000000
+    };
+
+    private static volatile int[] table = withEmphasis(DEFAULT_COLORS);
+
+    private NesPalette() {
+    }
+
+    /**
+     * Cor ARGB do índice de paleta (0-63) com a ênfase e o modo cinza de um valor do PPUMASK.
+     */
+    public static int color(int ppuMask, int index) {
+        return table[entry(ppuMask, index)];
+    }
+
+    /**
+     * Posição na tabela (ênfase << 6 | cor, 9 bits) do índice de paleta com o PPUMASK:
+     * é o valor guardado no framebuffer indexado.
+     */
+    public static int entry(int ppuMask, int index) {
+        if ((ppuMask & 0x01) != 0) {
+            // escala de cinza: só a coluna 0 de cada linha da paleta
+            index &= 0x30;
+        }
+        return ((ppuMask & 0xE0) << 1) | (index & 0x3F);
+    }
+
+    // Converte um framebuffer indexado para ARGB com a tabela atual
+    public static void toArgb(short[] entries, int[] argb) {
+        int[] colors = table;
+        for (int i = 0; i < entries.length; i++) {
+            argb[i] = colors[entries[i]];
+        }
+    }
+
+    // Tabela atual (512 entradas, índice = ênfase << 6 | cor); não deve ser alterada
+    public static int[] getTable() {
+        return table;
+    }
+
+    /**
+     * Troca as cores: 64 cores (a ênfase é calculada) ou 512 (já com ênfase), em ARGB.
+     */
+    public static void setColors(int[] argb) {
+        if (argb.length == COLORS) {
+            table = withEmphasis(argb);
+        } else if (argb.length == SIZE) {
+            table = argb.clone();
+        } else {
+            throw new IllegalArgumentException("Paleta deve ter 64 ou 512 cores: " + argb.length);
+        }
+    }
+
+    /**
+     * Carrega um arquivo .pal: RGB de 3 bytes por cor, com 64 cores (192 bytes) ou
+     * 512 cores com ênfase (1536 bytes).
+     */
+    public static void load(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        if (data.length != COLORS * 3 && data.length != SIZE * 3) {
+            throw new IllegalArgumentException("Arquivo .pal inválido (" + data.length + " bytes): " + file);
+        }
+        int[] argb = new int[data.length / 3];
+        for (int i = 0; i < argb.length; i++) {
+            int r = data[i * 3] & 0xFF;
+            int g = data[i * 3 + 1] & 0xFF;
+            int b = data[i * 3 + 2] & 0xFF;
+            argb[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        setColors(argb);
+    }
+
+    // Volta para a paleta padrão
+    public static void reset() {
+        table = withEmphasis(DEFAULT_COLORS);
+    }
+
+    private static int[] withEmphasis(int[] colors) {
+        int[] result = new int[SIZE];
+        for (int emphasis = 0; emphasis < 8; emphasis++) {
+            // bit 0 = vermelho, bit 1 = verde, bit 2 = azul (PPUMASK bits 5-7); cada bit
+            // escurece os outros dois canais, então com os três ligados tudo escurece
+            double red = (emphasis & 0x06) != 0 ? EMPHASIS_ATTENUATION : 1.0;
+            double green = (emphasis & 0x05) != 0 ? EMPHASIS_ATTENUATION : 1.0;
+            double blue = (emphasis & 0x03) != 0 ? EMPHASIS_ATTENUATION : 1.0;
+            for (int i = 0; i < COLORS; i++) {
+                int argb = colors[i];
+                int r = (int) (((argb >> 16) & 0xFF) * red);
+                int g = (int) (((argb >> 8) & 0xFF) * green);
+                int b = (int) ((argb & 0xFF) * blue);
+                result[(emphasis << 6) | i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return result;
+    }
+}
@@ -3,6 +3,8 @@ package ppu;
 
 import nes.memory.Mapper;
 
+import java.util.Arrays;
+
 /**
  * PPU (Picture Processing Unit) do nes.NES
  * Responsável por renderizar gráficos
@@ -12,8 +14,22 @@ public class PPU {
     public static final int SCREEN_WIDTH = 256;
     public static final int SCREEN_HEIGHT = 240;
 
+    // Temporização NTSC: 341 ciclos por linha, 262 linhas por frame
+    private static final int DOTS_PER_SCANLINE = 341;
+    private static final int DOTS_PER_FRAME = DOTS_PER_SCANLINE * 262;
+    // Entrada da paleta para preto ($0F sem ênfase)
+    private static final int BLACK_ENTRY = 0x0F;
+    private static final int POST_RENDER_DOT = 240 * DOTS_PER_SCANLINE;
+    private static final int VBLANK_START_DOT = 241 * DOTS_PER_SCANLINE + 1;
+    private static final int VBLANK_END_DOT = 261 * DOTS_PER_SCANLINE + 1;
+
     // Framebuffer: array de pixels (formato RGB)
     private int[] framebuffer;
+    // Framebuffer indexado: entrada da NesPalette (ênfase << 6 | cor) de cada pixel
+    private final short[] indexedFramebuffer = new short[SCREEN_WIDTH * SCREEN_HEIGHT];
+    private PixelFormat pixelFormat = PixelFormat.ARGB;
+    // Com uma troca de frames, o framebuffer é o buffer de trás dela, publicado no VBlank
+    private FrameExchange frameExchange;
 
     private boolean debugPattern = false;
 
@@ -47,6 +63,7 @@ public class PPU {
     private boolean nmiOccurred;
     private boolean renderingEnabled;
     private boolean sprite0Hit; // novo: flag de colisão do sprite 0
+    private int lastStatusRead; // último valor lido de $2002 (bits 5-7)
 
     // Registradores internos de endereço/scroll (modelo mais fiel)
     private int vramAddr;     // v: endereço VRAM atual (15 bits, usamos 14)
@@ -55,21 +72,72 @@ public class PPU {
     private boolean writeToggle; // w: flip-flop de escrita para PPUSCROLL/PPUADDR
 
     // Background rendering shift registers e buffers
-    private int bgShiftPatternLow = 0;
-    private int bgShiftPatternHigh = 0;
+    // (padrão com 2 bits por pixel: 16 pixels, o próximo a sair nos bits 31-30)
+    private int bgShiftPattern = 0;
     private int bgShiftAttribLow = 0;
     private int bgShiftAttribHigh = 0;
 
     // Next tile data
     private int bgNextTileId = 0;
     private int bgNextTileAttrib = 0;
-    private int bgNextTileLsb = 0;
-    private int bgNextTileMsb = 0;
+    private int bgNextTilePixels = 0; // linha decodificada do próximo tile
 
     private MirrorMode mirrorMode = MirrorMode.HORIZONTAL;
 
     private Mapper mapper;
 
+    // Pattern tables decodificadas em linhas de 2 bits por pixel
+    private final PatternTableCache patternCache = new PatternTableCache();
+
+    // Renderização: por linha (rápida) ou por ciclo (referência de precisão)
+    private RenderMode renderMode = RenderMode.SCANLINE;
+    // Frame skip: frameSkip de cada frameSkipPeriod frames não são compostos (0 = nenhum)
+    private int frameSkip = 0;
+    private int frameSkipPeriod = 1;
+    // O frame atual é desenhado? Frames pulados mantêm timing, registradores e sprite 0 hit
+    private boolean composeFrame = true;
+
+    // Estado capturado no início da linha, usado pelo renderizador por linha
+    private int lineCtrl;
+    private int lineMask;
+    private int lineVramAddr;
+    private int lineFineX;
+    // Ciclo da linha atual em que o sprite 0 colide (-1: não colide)
+    private int sprite0HitDot = -1;
+    // Avaliação de sprites: OAM secundária com até 8 sprites da próxima linha, e os
+    // padrões já buscados de cada um (como os shift registers de sprite do hardware)
+    private static final int MAX_SPRITES_PER_LINE = 8;
+    private final byte[] secondaryOam = new byte[MAX_SPRITES_PER_LINE * 4];
+    private final int[] spritePatterns = new int[MAX_SPRITES_PER_LINE]; // 2 bits por pixel
+    private final int[] spriteXs = new int[MAX_SPRITES_PER_LINE];
+    private final int[] spriteAttributes = new int[MAX_SPRITES_PER_LINE];
+    private int spriteCount;
+    private boolean spriteZeroInLine; // o slot 0 é o sprite 0 da OAM?
+    // Buffers de uma linha: fundo (paleta << 2 | cor, 0 = transparente) e sprites
+    private final int[] lineBackground = new int[SCREEN_WIDTH];
+    private final int[] lineSprites = new int[SCREEN_WIDTH];
+
+    /**
+     * DOT: busca de tiles e um pixel a cada ciclo, como o hardware (mais preciso).
+     * SCANLINE: as 256 colunas de cada linha de uma vez no fim da linha, com PPUCTRL,
+     * PPUMASK e scroll capturados no início dela. Mudanças no meio da linha só valem a
+     * partir da linha seguinte; a colisão do sprite 0 continua no ciclo certo.
+     */
+    public enum RenderMode {
+        DOT,
+        SCANLINE
+    }
+
+    /**
+     * ARGB: a PPU escreve a cor final de cada pixel em getFramebuffer().
+     * INDEXED: a PPU escreve só a entrada da paleta (9 bits) em getIndexedFramebuffer(); a
+     * conversão para ARGB acontece em getFramebuffer(), só quando alguém for exibir o frame.
+     */
+    public enum PixelFormat {
+        ARGB,
+        INDEXED
+    }
+
     public enum MirrorMode {
         HORIZONTAL,
         VERTICAL,
@@ -107,15 +175,19 @@ public class PPU {
         scanline = 0;
         cycle = 0;
         frame = 0;
+        composeFrame = !isSkippedFrame(frame);
 
         nmiOccurred = false;
         renderingEnabled = false;
         sprite0Hit = false;
+        sprite0HitDot = -1;
+        lastStatusRead = 0;
 
         // Limpa o framebuffer
         for (int i = 0; i < framebuffer.length; i++) {
             framebuffer[i] = 0xFF000000; // Preto
         }
+        Arrays.fill(indexedFramebuffer, (short) BLACK_ENTRY);
 
         vramAddr = 0;
         tempVramAddr = 0;
@@ -137,11 +209,13 @@ public class PPU {
             if (scanline > 261) {
                 scanline = 0;
                 frame++;
+                composeFrame = !isSkippedFrame(frame);
             }
         }
 
         // VBlank inicia na linha 241
         if (scanline == 241 && cycle == 1) {
+            publishFrame();
             ppuStatus |= 0x80; // Set VBlank flag (bit 7)
             if ((ppuCtrl & 0x80) != 0) { // NMI habilitado
                 nmiOccurred = true;
@@ -153,11 +227,40 @@ public class PPU {
             ppuStatus &= ~0x80; // Clear VBlank flag
             nmiOccurred = false;
             sprite0Hit = false; // limpa sprite 0 hit a cada frame
-            ppuStatus &= ~0x40; // garante bit 6 limpo no início do frame
+            ppuStatus &= ~0x60; // garante bits 5 (overflow) e 6 limpos no início do frame
         }
 
         // Rendering logic (scanlines 0-239 e pre-render scanline 261)
-        if (scanline < 240 || scanline == 261) {
+        if (renderMode == RenderMode.SCANLINE) {
+            if (scanline < 240) {
+                if (cycle == 1) {
+                    beginScanline();
+                }
+                if (cycle == sprite0HitDot) {
+                    sprite0Hit = true;
+                    ppuStatus |= 0x40;
+                }
+                if (cycle == 256) {
+                    if (composeFrame) {
+                        renderScanline();
+                    }
+                    incrementScrollY();
+                } else if (cycle == 257) {
+                    transferAddressX();
+                    evaluateSprites();
+                }
+            } else if (scanline == 261) {
+                if (cycle == 256) {
+                    incrementScrollY();
+                } else if (cycle == 257) {
+                    transferAddressX();
+                    spriteCount = 0;
+                    spriteZeroInLine = false;
+                } else if (cycle >= 280 && cycle < 305) {
+                    transferAddressY();
+                }
+            }
+        } else if (scanline < 240 || scanline == 261) {
             // Atualiza shift registers e busca tiles
             if ((cycle >= 2 && cycle < 258) || (cycle >= 321 && cycle < 338)) {
                 updateShifters();
@@ -176,14 +279,10 @@ public class PPU {
                         bgNextTileAttrib &= 0x03;
                         break;
                     case 4:
+                        // os dois planos do padrão de uma vez, já decodificados
                         int patternBase = (ppuCtrl & 0x10) != 0 ? 0x1000 : 0x0000;
                         int fineY = (vramAddr >> 12) & 0x07;
-                        bgNextTileLsb = ppuRead(patternBase + (bgNextTileId << 4) + fineY) & 0xFF;
-                        break;
-                    case 6:
-                        int patternBase2 = (ppuCtrl & 0x10) != 0 ? 0x1000 : 0x0000;
-                        int fineY2 = (vramAddr >> 12) & 0x07;
-                        bgNextTileMsb = ppuRead(patternBase2 + (bgNextTileId << 4) + fineY2 + 8) & 0xFF;
+                        bgNextTilePixels = patternCache.rows[PatternTableCache.rowIndex(patternBase, bgNextTileId, fineY)];
                         break;
                     case 7:
                         incrementScrollX();
@@ -198,6 +297,12 @@ public class PPU {
             if (cycle == 257) {
                 loadBackgroundShifters();
                 transferAddressX();
+                if (scanline < 240) {
+                    evaluateSprites();
+                } else {
+                    spriteCount = 0; // a linha 0 não tem sprites
+                    spriteZeroInLine = false;
+                }
             }
 
             if (cycle == 338 || cycle == 340) {
@@ -210,11 +315,416 @@ public class PPU {
         }
 
         // Renderiza linhas visíveis (0-239)
-        if (scanline < 240 && cycle >= 1 && cycle <= 256) {
+        if (renderMode == RenderMode.DOT && scanline < 240 && cycle >= 1 && cycle <= 256) {
             renderPixel();
         }
     }
 
+    /**
+     * Início de uma linha visível no modo por linha: guarda o estado de renderização e
+     * calcula em que ciclo o sprite 0 vai colidir com o fundo, se colidir.
+     */
+    private void beginScanline() {
+        lineCtrl = ppuCtrl;
+        lineMask = ppuMask;
+        lineVramAddr = vramAddr;
+        lineFineX = fineX;
+        sprite0HitDot = -1;
+        if (sprite0Hit || !spriteZeroInLine || (lineMask & 0x18) != 0x18) {
+            return;
+        }
+        int pattern = spritePatterns[0];
+        for (int px = 0; px < 8; px++) {
+            int x = spriteXs[0] + px;
+            if (x >= 255) {
+                break;
+            }
+            if (x < 8 && ((lineMask & 0x04) == 0 || (lineMask & 0x02) == 0)) {
+                continue;
+            }
+            if (spritePixel(pattern, px) != 0 && backgroundPixelAt(x) != 0) {
+                // no modo por ciclo o pixel x é desenhado no ciclo x + 1
+                sprite0HitDot = x + 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Desenha as 256 colunas da linha atual num laço, com o estado capturado em beginScanline.
+     */
+    private void renderScanline() {
+        int y = scanline;
+        boolean showBackground = (lineMask & 0x08) != 0;
+        boolean showSprites = (lineMask & 0x10) != 0;
+
+        // Fundo: 33 tiles a partir do scroll (o primeiro pode estar deslocado por fineX)
+        if (showBackground) {
+            int v = lineVramAddr;
+            int fineY = (v >> 12) & 0x07;
+            int coarseY = (v >> 5) & 0x1F;
+            int coarseX = v & 0x1F;
+            int nametable = v & 0x0C00;
+            int patternBase = (lineCtrl & 0x10) != 0 ? 0x1000 : 0x0000;
+            int x = -lineFineX;
+            for (int tile = 0; tile < 33; tile++) {
+                int tileId = ppuRead(0x2000 | nametable | (coarseY << 5) | coarseX);
+                int attribute = ppuRead(0x23C0 | nametable | ((coarseY << 1) & 0x38) | (coarseX >> 2));
+                int paletteHigh = ((attribute >> (((coarseY & 0x02) << 1) | (coarseX & 0x02))) & 0x03) << 2;
+                int pixels = patternCache.rows[PatternTableCache.rowIndex(patternBase, tileId, fineY)];
+                for (int px = 0; px < 8; px++, x++) {
+                    if (x < 0 || x >= SCREEN_WIDTH) {
+                        continue;
+                    }
+                    int color = PatternTableCache.pixel(pixels, px);
+                    lineBackground[x] = color == 0 ? 0 : paletteHigh | color;
+                }
+                if (++coarseX == 32) {
+                    coarseX = 0;
+                    nametable ^= 0x0400;
+                }
+            }
+            if ((lineMask & 0x02) == 0) {
+                Arrays.fill(lineBackground, 0, 8, 0);
+            }
+        } else {
+            Arrays.fill(lineBackground, 0);
+        }
+
+        // Sprites: em cada coluna vale o primeiro sprite opaco na ordem da OAM
+        Arrays.fill(lineSprites, -1);
+        if (showSprites) {
+            int firstX = (lineMask & 0x04) == 0 ? 8 : 0;
+            for (int slot = 0; slot < spriteCount; slot++) {
+                int attributes = spriteAttributes[slot];
+                int spriteX = spriteXs[slot];
+                int pattern = spritePatterns[slot];
+                for (int px = 0; px < 8; px++) {
+                    int x = spriteX + px;
+                    if (x >= SCREEN_WIDTH) {
+                        break;
+                    }
+                    if (x < firstX || lineSprites[x] >= 0) {
+                        continue;
+                    }
+                    int color = spritePixel(pattern, px);
+                    if (color != 0) {
+                        // paleta de sprite (0x10-0x1F) e prioridade atrás do fundo no bit 5
+                        lineSprites[x] = 0x10 | ((attributes & 0x03) << 2) | color | (attributes & 0x20);
+                    }
+                }
+            }
+        }
+
+        int backdrop = NesPalette.entry(lineMask, palette[0]);
+        int row = y * SCREEN_WIDTH;
+        int[] colors = NesPalette.getTable();
+        boolean indexed = pixelFormat == PixelFormat.INDEXED;
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            int background = lineBackground[x];
+            int sprite = lineSprites[x];
+            int entry;
+            if (sprite >= 0 && ((sprite & 0x20) == 0 || background == 0)) {
+                entry = NesPalette.entry(lineMask, ppuRead(0x3F00 + (sprite & 0x1F)));
+            } else if (background != 0) {
+                entry = NesPalette.entry(lineMask, ppuRead(0x3F00 + background));
+            } else {
+                entry = backdrop;
+            }
+            if (indexed) {
+                indexedFramebuffer[row + x] = (short) entry;
+            } else {
+                framebuffer[row + x] = colors[entry];
+            }
+        }
+    }
+
+    // Pixel de fundo (0-3) na coluna x da linha atual, com o estado capturado
+    private int backgroundPixelAt(int x) {
+        int v = lineVramAddr;
+        int position = (v & 0x1F) * 8 + lineFineX + x;
+        int coarseX = (position >> 3) & 0x1F;
+        int nametable = (v & 0x0C00) ^ ((position & 0x100) << 2);
+        int tileId = ppuRead(0x2000 | nametable | (v & 0x03E0) | coarseX);
+        int patternBase = (lineCtrl & 0x10) != 0 ? 0x1000 : 0x0000;
+        int fineY = (v >> 12) & 0x07;
+        int pixels = patternCache.rows[PatternTableCache.rowIndex(patternBase, tileId, fineY)];
+        return PatternTableCache.pixel(pixels, position & 0x07);
+    }
+
+    /**
+     * Avaliação de sprites no fim da linha (ciclo 257): copia para a OAM secundária os até
+     * 8 primeiros sprites que aparecem na próxima linha e busca seus padrões. Um sprite com
+     * Y na OAM aparece a partir da linha Y + 1. Com mais de 8, liga o flag de overflow.
+     */
+    private void evaluateSprites() {
+        spriteCount = 0;
+        spriteZeroInLine = false;
+        if ((ppuMask & 0x18) == 0) {
+            return;
+        }
+        int height = (ppuCtrl & 0x20) != 0 ? 16 : 8;
+        for (int i = 0; i < 64; i++) {
+            int row = scanline - (oam[i * 4] & 0xFF);
+            if (row < 0 || row >= height) {
+                continue;
+            }
+            if (spriteCount == MAX_SPRITES_PER_LINE) {
+                ppuStatus |= 0x20;
+                break;
+            }
+            System.arraycopy(oam, i * 4, secondaryOam, spriteCount * 4, 4);
+            if (i == 0) {
+                spriteZeroInLine = true;
+            }
+            spriteCount++;
+        }
+
+        // Busca dos padrões (ciclos 257-320 no hardware)
+        for (int slot = 0; slot < spriteCount; slot++) {
+            int base = slot * 4;
+            int row = scanline - (secondaryOam[base] & 0xFF);
+            int attributes = secondaryOam[base + 2] & 0xFF;
+            spritePatterns[slot] = spritePatternRow(secondaryOam[base + 1] & 0xFF, attributes, row, height);
+            spriteAttributes[slot] = attributes;
+            spriteXs[slot] = secondaryOam[base + 3] & 0xFF;
+        }
+    }
+
+    // Linha decodificada (2 bits por pixel) da linha row de um sprite, já espelhada
+    private int spritePatternRow(int tileIndex, int attributes, int row, int height) {
+        if ((attributes & 0x80) != 0) {
+            row = height - 1 - row;
+        }
+        int patternAddr;
+        if (height == 16) {
+            // 8x16: o bit 0 do tile escolhe a pattern table; a metade de baixo é o tile seguinte
+            patternAddr = ((tileIndex & 0x01) << 12) + ((tileIndex & 0xFE) << 4) + ((row & 0x08) << 1) + (row & 0x07);
+        } else {
+            int patternBase = (ppuCtrl & 0x08) != 0 ? 0x1000 : 0x0000;
+            patternAddr = patternBase + (tileIndex << 4) + row;
+        }
+        int[] rows = (attributes & 0x40) != 0 ? patternCache.flippedRows : patternCache.rows;
+        return rows[PatternTableCache.rowIndex(patternAddr)];
+    }
+
+    // Cor (0-3) da coluna px (0 = esquerda) de uma linha de sprite
+    private static int spritePixel(int pattern, int px) {
+        return PatternTableCache.pixel(pattern, px);
+    }
+
+    // Redecodifica as pattern tables inteiras (CHR carregado, mapper trocou bancos de CHR)
+    public void invalidatePatternTables() {
+        for (int address = 0; address < 0x2000; address += 16) {
+            for (int row = 0; row < 8; row++) {
+                patternCache.decodeRow(PatternTableCache.rowIndex(address + row),
+                    ppuRead(address + row), ppuRead(address + row + 8));
+            }
+        }
+    }
+
+    // Redecodifica a linha de tile que contém o endereço (escrita em CHR-RAM)
+    private void invalidatePatternRow(int address) {
+        int low = address & ~0x08;
+        patternCache.decodeRow(PatternTableCache.rowIndex(low), ppuRead(low), ppuRead(low | 0x08));
+    }
+
+    /**
+     * Pula a composição de skip de cada period frames, espalhados pelo período (1/2: um sim,
+     * um não). VBlank, NMI, scroll, sprite 0 hit e overflow continuam exatos; o framebuffer
+     * mantém o último frame desenhado e frames pulados não são publicados.
+     */
+    public void setFrameSkip(int skip, int period) {
+        if (period < 1 || skip < 0 || skip >= period) {
+            throw new IllegalArgumentException("Frame skip inválido: " + skip + "/" + period);
+        }
+        frameSkip = skip;
+        frameSkipPeriod = period;
+        composeFrame = !isSkippedFrame(frame);
+    }
+
+    public int getFrameSkip() {
+        return frameSkip;
+    }
+
+    public int getFrameSkipPeriod() {
+        return frameSkipPeriod;
+    }
+
+    // O frame atual está sendo desenhado (não foi pulado)?
+    public boolean isComposingFrame() {
+        return composeFrame;
+    }
+
+    private boolean isSkippedFrame(long frame) {
+        if (frameSkip == 0) {
+            return false;
+        }
+        // pula o frame quando frame * skip / period muda de valor: os pulados ficam espalhados
+        return (frame + 1) * frameSkip / frameSkipPeriod != frame * frameSkip / frameSkipPeriod;
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        sprite0HitDot = -1;
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Avança a PPU vários ciclos de uma vez. Para antes do fim se um NMI for gerado,
+     * retornando quantos ciclos foram de fato executados.
+     * Trechos em que step() não faria nada observável são pulados num salto só: a linha
+     * pós-render e o VBlank e, no modo por linha com a renderização desligada, as linhas
+     * visíveis e a de pré-render (o fundo vira um preenchimento com a cor de backdrop).
+     */
+    public int advance(int dots) {
+        int done = 0;
+        while (done < dots) {
+            int idle = nmiOccurred ? 0 : idleDots(dots - done);
+            if (idle > 0) {
+                skipIdleDots(idle);
+                done += idle;
+                continue;
+            }
+            step();
+            done++;
+            if (nmiOccurred) {
+                return done;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Quantos dos próximos ciclos (até limit) não têm evento: nada de VBlank, NMI, busca,
+     * transferência de scroll ou sprite 0. Nunca cruza o fim do frame.
+     */
+    private int idleDots(int limit) {
+        int position = scanline * DOTS_PER_SCANLINE + cycle;
+        // Linhas sem nada a fazer além de desenhar o backdrop, com PPUMASK parado
+        boolean renderingIdle = renderMode == RenderMode.SCANLINE && (ppuMask & 0x18) == 0
+            && !(scanline < 240 && cycle >= 1 && cycle < 256 && (lineMask & 0x18) != 0);
+        int end;
+        if (position < VBLANK_START_DOT - 1) {
+            if (!renderingIdle && position < POST_RENDER_DOT - 1) {
+                return 0;
+            }
+            end = VBLANK_START_DOT - 1;
+        } else if (position >= VBLANK_START_DOT && position < VBLANK_END_DOT - 1) {
+            end = VBLANK_END_DOT - 1;
+        } else if (renderingIdle && position >= VBLANK_END_DOT && position < DOTS_PER_FRAME - 1) {
+            end = DOTS_PER_FRAME - 1;
+        } else {
+            return 0;
+        }
+        return Math.min(end - position, limit);
+    }
+
+    /**
+     * Executa de uma vez dots ciclos achados por idleDots: nas linhas cruzadas, só o que
+     * step() faria com a renderização desligada.
+     */
+    private void skipIdleDots(int dots) {
+        int from = scanline * DOTS_PER_SCANLINE + cycle + 1;
+        int to = from + dots - 1;
+        if (renderMode == RenderMode.SCANLINE) {
+            int lastLine = Math.min(to / DOTS_PER_SCANLINE, 239);
+            for (int line = from / DOTS_PER_SCANLINE; line <= lastLine; line++) {
+                int lineStart = line * DOTS_PER_SCANLINE;
+                scanline = line;
+                if (from <= lineStart + 1 && lineStart + 1 <= to) {
+                    beginScanline();
+                }
+                if (from <= lineStart + 256 && lineStart + 256 <= to && composeFrame) {
+                    fillScanline(line, NesPalette.entry(lineMask, palette[0]));
+                }
+                if (from <= lineStart + 257 && lineStart + 257 <= to) {
+                    evaluateSprites();
+                }
+            }
+            if (from <= VBLANK_END_DOT + 256 && VBLANK_END_DOT + 256 <= to) {
+                spriteCount = 0; // pré-render: a linha 0 não tem sprites
+                spriteZeroInLine = false;
+            }
+        }
+        scanline = to / DOTS_PER_SCANLINE;
+        cycle = to % DOTS_PER_SCANLINE;
+    }
+
+    // Linha inteira com uma só entrada da paleta (renderização desligada)
+    private void fillScanline(int y, int entry) {
+        int row = y * SCREEN_WIDTH;
+        if (pixelFormat == PixelFormat.INDEXED) {
+            Arrays.fill(indexedFramebuffer, row, row + SCREEN_WIDTH, (short) entry);
+        } else {
+            Arrays.fill(framebuffer, row, row + SCREEN_WIDTH, NesPalette.getTable()[entry]);
+        }
+    }
+
+    /**
+     * Quantos ciclos de PPU faltam até o próximo evento que a CPU pode observar:
+     * início do VBlank (flag e NMI) ou fim do VBlank na linha de pré-render.
+     * Se statusObserved, retorna 0 quando a próxima leitura de $2002 já daria outro
+     * valor, ou quando o sprite 0 ainda pode colidir neste frame; e não passa da próxima
+     * avaliação de sprites enquanto o flag de overflow ainda pode ser ligado.
+     */
+    public int dotsUntilNextEvent(boolean statusObserved) {
+        if (statusObserved) {
+            int nextRead = (ppuStatus & 0xA0) | (sprite0Hit ? 0x40 : 0);
+            if (nextRead != lastStatusRead) {
+                return 0;
+            }
+            if (!sprite0Hit && (ppuMask & 0x18) == 0x18 && (scanline < 240 || scanline == 261)) {
+                return 0;
+            }
+        }
+        int position = scanline * DOTS_PER_SCANLINE + cycle;
+        int untilVBlank = distanceTo(VBLANK_START_DOT, position);
+        int untilPreRender = distanceTo(VBLANK_END_DOT, position);
+        int until = Math.min(untilVBlank, untilPreRender);
+        if (statusObserved && (ppuStatus & 0x20) == 0 && (ppuMask & 0x18) != 0) {
+            // a próxima avaliação de sprites pode ligar o flag de overflow
+            int evaluationLine = cycle < 257 ? scanline : scanline + 1;
+            if (evaluationLine < 240) {
+                until = Math.min(until, distanceTo(evaluationLine * DOTS_PER_SCANLINE + 257, position));
+            }
+        }
+        return until;
+    }
+
+    // Passos de step() até alcançar a posição alvo no frame (sempre >= 1)
+    private static int distanceTo(int target, int position) {
+        int distance = target - position;
+        if (distance <= 0) {
+            distance += DOTS_PER_FRAME;
+        }
+        return distance;
+    }
+
+    /**
+     * Frame pulado: só o teste de colisão do sprite 0 do pixel x, sem cor nem escrita.
+     */
+    private void checkSprite0Hit(int x) {
+        // como no desenho, só vale o que está na OAM secundária da linha
+        if (sprite0Hit || spriteCount == 0 || !spriteZeroInLine || (ppuMask & 0x18) != 0x18 || x >= 255) {
+            return;
+        }
+        if (x < 8 && ((ppuMask & 0x04) == 0 || (ppuMask & 0x02) == 0)) {
+            return;
+        }
+        int pixelX = x - spriteXs[0];
+        if (pixelX < 0 || pixelX >= 8 || spritePixel(spritePatterns[0], pixelX) == 0) {
+            return;
+        }
+        if (((bgShiftPattern >>> (30 - (fineX << 1))) & 0x03) != 0) {
+            sprite0Hit = true;
+            ppuStatus |= 0x40;
+        }
+    }
+
     /**
      * Renderiza um pixel simples (background + sprites básicos)
      */
@@ -222,6 +732,10 @@ public class PPU {
         int x = cycle - 1;
         int y = scanline;
         if (x < 0 || x >= SCREEN_WIDTH || y < 0 || y >= SCREEN_HEIGHT) return;
+        if (!composeFrame) {
+            checkSprite0Hit(x);
+            return;
+        }
 
         boolean showBackground = (ppuMask & 0x08) != 0;
         boolean showSprites = (ppuMask & 0x10) != 0;
@@ -229,14 +743,12 @@ public class PPU {
         boolean spritesEnabledAtX = showSprites && (x >= 8 || (ppuMask & 0x04) != 0);
 
         int bgPaletteLocalIndex = 0;
-        int bgColor = getBackgroundColor();
+        int bgColor = paletteEntry(palette[0]);
 
         if (backgroundEnabledAtX && showBackground) {
             // Use shift registers to get background pixel
             int bitMux = 0x8000 >> fineX;
-            int p0 = (bgShiftPatternLow & bitMux) != 0 ? 1 : 0;
-            int p1 = (bgShiftPatternHigh & bitMux) != 0 ? 1 : 0;
-            bgPaletteLocalIndex = (p1 << 1) | p0;
+            bgPaletteLocalIndex = (bgShiftPattern >>> (30 - (fineX << 1))) & 0x03;
 
             if (bgPaletteLocalIndex != 0) {
                 int pal0 = (bgShiftAttribLow & bitMux) != 0 ? 1 : 0;
@@ -246,7 +758,7 @@ public class PPU {
                 int paletteEntryIndex = paletteIndexInBytes & 0x0F;
                 int paletteAddr = 0x3F00 + paletteEntryIndex;
                 int paletteIndex = ppuRead(paletteAddr) & 0x3F;
-                bgColor = getNESColor(paletteIndex);
+                bgColor = paletteEntry(paletteIndex);
             }
         }
 
@@ -254,47 +766,19 @@ public class PPU {
         int finalColor = bgColor;
 
         if (spritesEnabledAtX) {
-            // Cada sprite ocupa 4 bytes na OAM: Y, tileIndex, atributos, X
-            for (int i = 0; i < 64; i++) {
-                int base = i * 4;
-                int spriteY = (oam[base] & 0xFF);
-                int tileIndex = oam[base + 1] & 0xFF;
-                int attributes = oam[base + 2] & 0xFF;
-                int spriteX = oam[base + 3] & 0xFF;
-
-                int spriteHeight = 8; // modo 8x8 apenas por enquanto
-
-                if (x < spriteX || x >= spriteX + 8 || y < spriteY || y >= spriteY + spriteHeight) {
+            // Só os sprites da OAM secundária, avaliados no fim da linha anterior
+            for (int slot = 0; slot < spriteCount; slot++) {
+                int pixelX = x - spriteXs[slot];
+                if (pixelX < 0 || pixelX >= 8) {
                     continue;
                 }
 
-                int pixelX = x - spriteX;
-                int pixelY = y - spriteY;
-
-                boolean flipHorizontal = (attributes & 0x40) != 0;
-                boolean flipVertical = (attributes & 0x80) != 0;
-
-                if (flipHorizontal) {
-                    pixelX = 7 - pixelX;
-                }
-                if (flipVertical) {
-                    pixelY = 7 - pixelY;
-                }
-
-                int patternBase = (ppuCtrl & 0x08) != 0 ? 0x1000 : 0x0000;
-                int patternAddr = patternBase + tileIndex * 16 + pixelY;
-
-                int lowPlane = ppuRead(patternAddr);
-                int highPlane = ppuRead(patternAddr + 8);
-
-                int bit0 = (lowPlane >> (7 - pixelX)) & 0x01;
-                int bit1 = (highPlane >> (7 - pixelX)) & 0x01;
-                int paletteIndexLocal = (bit1 << 1) | bit0;
-
+                int paletteIndexLocal = spritePixel(spritePatterns[slot], pixelX);
                 if (paletteIndexLocal == 0) {
                     continue;
                 }
 
+                int attributes = spriteAttributes[slot];
                 int paletteHighBits = attributes & 0x03;
                 int paletteIndexInBytes = (paletteHighBits << 2) | paletteIndexLocal;
 
@@ -302,10 +786,10 @@ public class PPU {
                 int paletteAddr = 0x3F10 + paletteEntryIndex;
                 int paletteIndex = ppuRead(paletteAddr) & 0x3F;
 
-                int spriteColor = getNESColor(paletteIndex);
+                int spriteColor = paletteEntry(paletteIndex);
                 boolean spriteBehindBackground = (attributes & 0x20) != 0;
 
-                if (i == 0 && bgHasVisiblePixel && x < 255) {
+                if (slot == 0 && spriteZeroInLine && bgHasVisiblePixel && x < 255) {
                     sprite0Hit = true;
                     ppuStatus |= 0x40;
                 }
@@ -318,7 +802,11 @@ public class PPU {
             }
         }
 
-        framebuffer[y * SCREEN_WIDTH + x] = finalColor;
+        if (pixelFormat == PixelFormat.INDEXED) {
+            indexedFramebuffer[y * SCREEN_WIDTH + x] = (short) finalColor;
+        } else {
+            framebuffer[y * SCREEN_WIDTH + x] = NesPalette.getTable()[finalColor];
+        }
     }
 
     /**
@@ -326,8 +814,7 @@ public class PPU {
      */
     private void updateShifters() {
         if ((ppuMask & 0x08) != 0) {
-            bgShiftPatternLow <<= 1;
-            bgShiftPatternHigh <<= 1;
+            bgShiftPattern <<= 2;
             bgShiftAttribLow <<= 1;
             bgShiftAttribHigh <<= 1;
         }
@@ -337,8 +824,7 @@ public class PPU {
      * Carrega os shift registers com os próximos dados de tile
      */
     private void loadBackgroundShifters() {
-        bgShiftPatternLow = (bgShiftPatternLow & 0xFF00) | (bgNextTileLsb & 0xFF);
-        bgShiftPatternHigh = (bgShiftPatternHigh & 0xFF00) | (bgNextTileMsb & 0xFF);
+        bgShiftPattern = (bgShiftPattern & 0xFFFF0000) | bgNextTilePixels;
 
         bgShiftAttribLow = (bgShiftAttribLow & 0xFF00) | ((bgNextTileAttrib & 0x01) != 0 ? 0xFF : 0x00);
         bgShiftAttribHigh = (bgShiftAttribHigh & 0xFF00) | ((bgNextTileAttrib & 0x02) != 0 ? 0xFF : 0x00);
@@ -496,20 +982,12 @@ public class PPU {
     }
 
     private int getNESColor(int index) {
-        final int[] nesColors = {
-            0xFF545454, 0xFF001E74, 0xFF081090, 0xFF300088, 0xFF440064, 0xFF5C0030, 0xFF540400, 0xFF3C1800,
-            0xFF202A00, 0xFF083A00, 0xFF004000, 0xFF003C00, 0xFF00323C, 0xFF000000, 0xFF000000, 0xFF000000,
-            0xFF989698, 0xFF084CC4, 0xFF3032EC, 0xFF5C1EE4, 0xFF8814B0, 0xFFA01464, 0xFF982220, 0xFF783C00,
-            0xFF545A00, 0xFF287200, 0xFF087C00, 0xFF007628, 0xFF006678, 0xFF000000, 0xFF000000, 0xFF000000,
-            0xFFECEEEC, 0xFF4C9AEC, 0xFF787CEC, 0xFFB062EC, 0xFFE454EC, 0xFFEC58B4, 0xFFEC6A64, 0xFFD48820,
-            0xFFA0AA00, 0xFF74C400, 0xFF4CD020, 0xFF38CC6C, 0xFF38B4CC, 0xFF3C3C3C, 0xFF000000, 0xFF000000,
-            0xFFECEEEC, 0xFFA8CCEC, 0xFFBCBCEC, 0xFFD4B2EC, 0xFFECAEEC, 0xFFECAED4, 0xFFECB4B0, 0xFFE4C490,
-            0xFFCCD278, 0xFFB4DE78, 0xFFA8E290, 0xFF98E2B4, 0xFFA0D6E4, 0xFFA0A2A0, 0xFF000000, 0xFF000000
-        };
-        if (index >= 0 && index < nesColors.length) {
-            return nesColors[index];
-        }
-        return 0xFF000000;
+        return NesPalette.color(ppuMask, index);
+    }
+
+    // Entrada da NesPalette do índice de paleta com o PPUMASK atual
+    private int paletteEntry(int index) {
+        return NesPalette.entry(ppuMask, index);
     }
 
     public int readRegister(int register) {
@@ -521,6 +999,7 @@ public class PPU {
                     ppuStatus &= ~0x40;
                 }
                 int status = ppuStatus;
+                lastStatusRead = status & 0xE0;
                 ppuStatus &= ~0x80;
                 nmiOccurred = false;
                 writeToggle = false;
@@ -612,6 +1091,7 @@ public class PPU {
             chrRam = null;
             hasChrRam = false;
         }
+        invalidatePatternTables();
     }
 
     public boolean shouldTriggerNMI() {
@@ -628,6 +1108,11 @@ public class PPU {
         }
     }
 
+    // DMA de OAM: os 256 bytes de uma vez, a partir de data[offset]
+    public void writeOAMBlock(byte[] data, int offset) {
+        System.arraycopy(data, offset, oam, 0, oam.length);
+    }
+
     /**
      * Leitura de byte da memória PPU (VRAM, OAM, paletas, etc.)
      */
@@ -661,6 +1146,7 @@ public class PPU {
             } else if (hasChrRam) {
                 chrRam[addr & 0x1FFF] = (byte) data;
             }
+            invalidatePatternRow(addr);
             return;
         }
         if (addr >= 0x2000 && addr < 0x3F00) {
@@ -699,11 +1185,13 @@ public class PPU {
 
     public void setChrRom(byte[] chrRom) {
         this.chrRom = chrRom;
+        invalidatePatternTables();
     }
 
     public void setChrRam(byte[] chrRam) {
         this.chrRam = chrRam;
         this.hasChrRam = chrRam != null;
+        invalidatePatternTables();
     }
 
     public void setVram(byte[] vram) {
@@ -718,10 +1206,62 @@ public class PPU {
         this.palette = palette;
     }
 
+    /**
+     * Frame em ARGB. No formato INDEXED a conversão é feita aqui, a cada chamada.
+     */
     public int[] getFramebuffer() {
+        if (pixelFormat == PixelFormat.INDEXED) {
+            NesPalette.toArgb(indexedFramebuffer, framebuffer);
+        }
         return framebuffer;
     }
 
+    /**
+     * Frame como entradas da NesPalette (ênfase << 6 | cor); só é escrito no formato INDEXED.
+     * Para consumidores que não precisam de RGB (hash, comparação, gravação).
+     */
+    public short[] getIndexedFramebuffer() {
+        return indexedFramebuffer;
+    }
+
+    /**
+     * Passa a entregar cada frame completo (em ARGB) à troca, no início do VBlank.
+     * null volta ao framebuffer único.
+     */
+    public void setFrameExchange(FrameExchange frameExchange) {
+        this.frameExchange = frameExchange;
+        if (frameExchange != null) {
+            int[] back = frameExchange.getBackBuffer();
+            System.arraycopy(framebuffer, 0, back, 0, back.length);
+            framebuffer = back;
+        } else {
+            framebuffer = framebuffer.clone();
+        }
+    }
+
+    public FrameExchange getFrameExchange() {
+        return frameExchange;
+    }
+
+    // Fim das linhas visíveis: o frame desenhado vai para a troca e a PPU ganha outro buffer
+    private void publishFrame() {
+        if (frameExchange == null || !composeFrame) {
+            return;
+        }
+        if (pixelFormat == PixelFormat.INDEXED) {
+            NesPalette.toArgb(indexedFramebuffer, framebuffer);
+        }
+        framebuffer = frameExchange.publish();
+    }
+
+    public void setPixelFormat(PixelFormat pixelFormat) {
+        this.pixelFormat = pixelFormat;
+    }
+
+    public PixelFormat getPixelFormat() {
+        return pixelFormat;
+    }
+
     public int getPpuStatus() {
         return ppuStatus;
     }
@@ -766,6 +1306,7 @@ public class PPU {
         nmiOccurred = true;
     }
 
+    // Linha de depuração em ARGB (só aparece no formato ARGB)
     public void drawDebugLine(int y, int color) {
         if (y < 0 || y >= SCREEN_HEIGHT) {
             return;
@@ -803,6 +1344,7 @@ public class PPU {
 
     public void setMapper(Mapper mapper) {
         this.mapper = mapper;
+        invalidatePatternTables();
     }
 
     private int normalizePaletteAddress(int addr) {
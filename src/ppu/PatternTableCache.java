@@ -0,0 +1,45 @@
+package ppu;
+
+/**
+ * Pattern tables ($0000-$1FFF) já decodificadas: cada linha de 8 pixels de um tile vira um
+ * int com 2 bits por pixel, pixel 0 (esquerda) nos bits 15-14. Guarda também a versão
+ * espelhada na horizontal, usada pelos sprites.
+ *
+ * Reconstruída quando o CHR é carregado ou o mapper troca bancos; escritas em CHR-RAM
+ * redecodificam só a linha escrita.
+ */
+final class PatternTableCache {
+    // 512 tiles x 8 linhas
+    static final int ROW_COUNT = 0x1000;
+
+    final int[] rows = new int[ROW_COUNT];
+    final int[] flippedRows = new int[ROW_COUNT];
+
+    // Índice da linha que contém o endereço de pattern (qualquer um dos dois planos)
+    static int rowIndex(int address) {
+        return ((address >> 1) & 0x0FF8) | (address & 0x07);
+    }
+
+    // Índice da linha row (0-7) do tile, na pattern table que começa em patternBase
+    static int rowIndex(int patternBase, int tile, int row) {
+        return (patternBase >> 1) + (tile << 3) + row;
+    }
+
+    // Cor (0-3) do pixel px (0 = esquerda) de uma linha decodificada
+    static int pixel(int row, int px) {
+        return (row >> (14 - (px << 1))) & 0x03;
+    }
+
+    void decodeRow(int index, int low, int high) {
+        int row = 0;
+        int flipped = 0;
+        for (int px = 0; px < 8; px++) {
+            int bit = 7 - px;
+            int color = ((low >> bit) & 0x01) | (((high >> bit) & 0x01) << 1);
+            row |= color << (14 - (px << 1));
+            flipped |= color << (px << 1);
+        }
+        rows[index] = row;
+        flippedRows[index] = flipped;
+    }
+}